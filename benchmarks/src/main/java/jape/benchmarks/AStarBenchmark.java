@@ -0,0 +1,61 @@
+package jape.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.AStarBuilder;
+import jape.PathQuery;
+
+/**
+ * {@link AStarBuilder#findpath(Object, Object)} over maps of several sizes
+ * and queries of several lengths. Each invocation runs the next query of the
+ * set, so a score is an average over the whole set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AStarBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int siteCount;
+
+	@Param({ "SHORT", "MEDIUM", "CROSS_MAP" })
+	public QueryDistance distance;
+
+	private AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder;
+	private List<PathQuery<Coordinate>> queries;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Workload workload = new Workload(siteCount, distance, 64);
+		aStarBuilder = new AStarBuilder<>(workload.getGraph(), Workload.EUCLIDEAN);
+		queries = workload.getQueries();
+	}
+
+	@Benchmark
+	public List<Coordinate> findpath() {
+		PathQuery<Coordinate> query = queries.get(next);
+		next = (next + 1) % queries.size();
+		return aStarBuilder.findpath(query.getStart(), query.getGoal());
+	}
+}
@@ -0,0 +1,23 @@
+package jape.benchmarks;
+
+/**
+ * How far apart the start and goal of benchmark queries are, as a fraction
+ * of the width of the map.
+ */
+public enum QueryDistance {
+	SHORT(0.0, 0.05),
+	MEDIUM(0.2, 0.4),
+	CROSS_MAP(0.7, Double.POSITIVE_INFINITY);
+
+	private final double minFraction;
+	private final double maxFraction;
+
+	private QueryDistance(double minFraction, double maxFraction) {
+		this.minFraction = minFraction;
+		this.maxFraction = maxFraction;
+	}
+
+	public boolean contains(double fraction) {
+		return fraction >= minFraction && fraction < maxFraction;
+	}
+}
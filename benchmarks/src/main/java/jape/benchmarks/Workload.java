@@ -0,0 +1,91 @@
+package jape.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+
+import jape.AStarBuilder;
+import jape.Heuristic;
+import jape.PathQuery;
+import jape.RoutingGraphCompiler;
+import jape.map.Builder;
+import jape.map.IslandMap;
+
+/**
+ * A map, its routing graph and a fixed set of queries, all built from fixed
+ * seeds so that every run measures the same work.
+ */
+public class Workload {
+
+	/**
+	 * Straight line distance, the heuristic GraphTest uses.
+	 */
+	public static final Heuristic<Coordinate> EUCLIDEAN = (source, target) -> source.distance(target);
+
+	/**
+	 * Average spacing between sites, so maps of every size are equally dense.
+	 */
+	private static final double SITE_SPACING = 40.0;
+	private static final long MAP_SEED = 42;
+	private static final long QUERY_SEED = 7;
+
+	private final IslandMap map;
+	private final SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph;
+	private final List<PathQuery<Coordinate>> queries;
+
+	/**
+	 * @param queryCount
+	 *            number of queries, all of which have a path
+	 */
+	public Workload(int siteCount, QueryDistance distance, int queryCount) {
+		double size = Math.sqrt(siteCount) * SITE_SPACING;
+		GeometryFactory geomFact = new GeometryFactory();
+		Polygon bounds = geomFact.createPolygon(new Coordinate[] { new Coordinate(0.0, 0.0),
+				new Coordinate(0.0, size), new Coordinate(size, size), new Coordinate(size, 0.0),
+				new Coordinate(0.0, 0.0) });
+		Builder builder = new Builder();
+		Set<Coordinate> points = builder.createRandomPoints(siteCount, MAP_SEED, bounds);
+		points = builder.relax(points, bounds);
+		map = builder.buildData(points, bounds);
+		graph = new RoutingGraphCompiler(map).compileGraph();
+
+		// sort so the queries do not depend on hash set iteration order
+		List<Coordinate> sites = new ArrayList<>(graph.vertexSet());
+		Collections.sort(sites);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, EUCLIDEAN);
+		Random rng = new Random(QUERY_SEED);
+		queries = new ArrayList<>();
+		int attempts = 0;
+		while (queries.size() < queryCount) {
+			if (++attempts > queryCount * 10000)
+				throw new IllegalStateException("could not find " + queryCount + " " + distance + " queries");
+			Coordinate start = sites.get(rng.nextInt(sites.size()));
+			Coordinate goal = sites.get(rng.nextInt(sites.size()));
+			double fraction = start.distance(goal) / size;
+			if (distance.contains(fraction) && aStarBuilder.findpath(start, goal) != null) {
+				queries.add(new PathQuery<>(start, goal));
+			}
+		}
+	}
+
+	public IslandMap getMap() {
+		return map;
+	}
+
+	public SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> getGraph() {
+		return graph;
+	}
+
+	public List<PathQuery<Coordinate>> getQueries() {
+		return queries;
+	}
+}
@@ -1,96 +1,339 @@
 package jape;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
 
 import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 
 public class AStarBuilder<V, E> {
 
+	/**
+	 * The graph searched, or null if built from a neighbour source.
+	 */
 	private final SimpleDirectedWeightedGraph<V, E> graph;
+	private final NeighbourSource<V> neighbourSource;
 	private final Heuristic<V> heuristic;
+	private final OpenListStrategy openListStrategy;
+	private final ThreadLocal<SearchContext<V>> contexts;
+	private volatile SearchListener<? super V> searchListener = null;
+	private volatile ComponentLabels<V> componentLabels = null;
 
 	public AStarBuilder(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic) {
+		this(graph, heuristic, OpenListStrategy.BINARY_HEAP);
+	}
+
+	public AStarBuilder(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic,
+			OpenListStrategy openListStrategy) {
+		this(graph, new GraphNeighbourSource<>(graph), heuristic, openListStrategy);
+	}
+
+	/**
+	 * Searches without a JGraphT graph, for example over a
+	 * {@link CompactGraph} or a graph generated on demand.
+	 */
+	public AStarBuilder(NeighbourSource<V> neighbourSource, Heuristic<V> heuristic) {
+		this(neighbourSource, heuristic, OpenListStrategy.BINARY_HEAP);
+	}
+
+	public AStarBuilder(NeighbourSource<V> neighbourSource, Heuristic<V> heuristic,
+			OpenListStrategy openListStrategy) {
+		this(null, neighbourSource, heuristic, openListStrategy);
+	}
+
+	private AStarBuilder(SimpleDirectedWeightedGraph<V, E> graph, NeighbourSource<V> neighbourSource,
+			Heuristic<V> heuristic, OpenListStrategy openListStrategy) {
 		this.graph = graph;
+		this.neighbourSource = neighbourSource;
 		this.heuristic = heuristic;
+		this.openListStrategy = openListStrategy;
+		this.contexts = ThreadLocal.withInitial(() -> new SearchContext<V>(openListStrategy));
+		if (graph instanceof VersionedGraph) {
+			componentLabels = ComponentLabels.build(graph);
+		}
+	}
+
+	/**
+	 * @return the graph searched, or null if built from a neighbour source
+	 */
+	public SimpleDirectedWeightedGraph<V, E> getGraph() {
+		return graph;
+	}
+
+	public NeighbourSource<V> getNeighbourSource() {
+		return neighbourSource;
+	}
+
+	public OpenListStrategy getOpenListStrategy() {
+		return openListStrategy;
+	}
+
+	public SearchListener<? super V> getSearchListener() {
+		return searchListener;
+	}
+
+	/**
+	 * @param searchListener
+	 *            told the statistics of every search from now on, or null to
+	 *            stop; searches without a listener only pay for a few counters
+	 */
+	public void setSearchListener(SearchListener<? super V> searchListener) {
+		this.searchListener = searchListener;
+	}
+
+	public ComponentLabels<V> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every search, so that a goal the start
+	 *            cannot reach returns at once; built with the
+	 *            builder if the graph is a {@link VersionedGraph}, and built
+	 *            again by the first search after it changes. Labels of any
+	 *            other graph must be built again, or cleared with null,
+	 *            after the graph changes
+	 */
+	public void setComponentLabels(ComponentLabels<V> componentLabels) {
+		this.componentLabels = componentLabels;
 	}
 
 	public List<V> findpath(V start, V goal) {
-		final Map<V, Double> costEstimate = new HashMap<>();
-		final Map<V, Double> costSoFar = new HashMap<>();
-		final Map<V, V> cameFrom = new HashMap<>();
-		final Comparator<V> priorityComparator = new Comparator<V>() {
-			@Override
-			public int compare(V o1, V o2) {
-				double cost1 = costEstimate.get(o1);
-				double cost2 = costEstimate.get(o2);
-				if (cost1 < cost2) {
-					return -1;
-				} else if (cost1 > cost2) {
-					return 1;
-				} else {
-					return 0;
-				}
-			}
-		};
+		return search(start, goal).getPath();
+	}
 
-		Queue<V> open = new PriorityQueue<>(11, priorityComparator);
-		open.add(start);
-		costEstimate.put(start, 0.0);
-		costSoFar.put(start, 0.0);
+	/**
+	 * @return the path, or null if there is none or the limits stopped the
+	 *         search first
+	 */
+	public List<V> findpath(V start, V goal, SearchLimits limits) {
+		return search(start, goal, limits).getPath();
+	}
 
-		Set<V> closed = new HashSet<>();
+	/**
+	 * As {@link #findpath(Object, Object)}, but also reports the cost of the
+	 * path and the effort taken to find it. Runs in a search context kept for
+	 * the calling thread.
+	 */
+	public PathResult<V> search(V start, V goal) {
+		return search(start, goal, contexts.get(), SearchLimits.NONE);
+	}
 
-		while (!goal.equals(open.peek())) {
-			V current = open.poll();
-			closed.add(current);
+	/**
+	 * As {@link #search(Object, Object)}, but stops early if a limit is hit.
+	 */
+	public PathResult<V> search(V start, V goal, SearchLimits limits) {
+		return search(start, goal, contexts.get(), limits);
+	}
 
-			for (E edge : graph.edgesOf(current)) {
-				V edgeSource = graph.getEdgeSource(edge);
-				V edgeTarget = graph.getEdgeTarget(edge);
-				if (current.equals(edgeSource)) {
-					V neighbour = edgeTarget;
-					double cost = costSoFar.get(current) + graph.getEdgeWeight(edge);
+	/**
+	 * Searches using the state left in the context by an earlier search, so
+	 * that the search state is not allocated again; see
+	 * {@link SearchContext} for what is still allocated per query.
+	 */
+	public PathResult<V> search(V start, V goal, SearchContext<V> context) {
+		return search(start, goal, context, SearchLimits.NONE);
+	}
 
-					if (open.contains(neighbour) && cost < costSoFar.get(neighbour)) {
-						// remove from open because new path is better
-						open.remove(neighbour);
-					}
+	/**
+	 * As {@link #search(Object, Object, SearchContext)}, but checks the limits
+	 * before each expansion. A search stopped by a limit has no path, but a
+	 * partial path to the vertex with the lowest estimate to the goal.
+	 */
+	public PathResult<V> search(V start, V goal, SearchContext<V> context, SearchLimits limits) {
+		long startTime = System.nanoTime();
+		ComponentLabels<V> labels = getCurrentLabels();
+		if (labels != null && !labels.mayReach(start, goal)) {
+			PathResult<V> result = new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+			notifyListener(start, goal, result, 0, 0, 0, 0);
+			return result;
+		}
+		return search(start, goal, null, context, limits, startTime);
+	}
 
-					if (closed.contains(neighbour) && cost < costSoFar.get(neighbour)) {
-						closed.remove(neighbour);
-					}
+	public List<V> findpathToNearest(V start, Collection<? extends V> goals) {
+		return searchNearest(start, goals).getPath();
+	}
 
-					if (!closed.contains(neighbour) && !open.contains(neighbour)) {
-						costSoFar.put(neighbour, cost);
-						costEstimate.put(neighbour, cost + heuristic.getCostEstimate(neighbour, goal));
-						open.add(neighbour);
-						cameFrom.put(neighbour, current);
-					}
+	/**
+	 * Finds the path to whichever goal is cheapest to reach, in about the
+	 * time of one search rather than one per goal. The heuristic is the
+	 * lowest estimate to any goal, which is admissible if the heuristic is,
+	 * and the search stops when the first goal is taken off the open list.
+	 * Goals the component labels show to be unreachable are ignored.
+	 *
+	 * @return the path from the goal reached back to start, so
+	 *         {@link PathResult#getGoal()} is the goal reached; no path if no
+	 *         goal can be reached
+	 */
+	public PathResult<V> searchNearest(V start, Collection<? extends V> goals) {
+		return searchNearest(start, goals, contexts.get(), SearchLimits.NONE);
+	}
 
+	/**
+	 * As {@link #searchNearest(Object, Collection)}, in the given context
+	 * and stopping early if a limit is hit.
+	 */
+	public PathResult<V> searchNearest(V start, Collection<? extends V> goals, SearchContext<V> context,
+			SearchLimits limits) {
+		long startTime = System.nanoTime();
+		ComponentLabels<V> labels = getCurrentLabels();
+		List<V> reachable = new ArrayList<>(goals.size());
+		for (V goal : goals) {
+			if (labels == null || labels.mayReach(start, goal)) {
+				reachable.add(goal);
+			}
+		}
+		if (reachable.isEmpty()) {
+			PathResult<V> result = new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+			notifyListener(start, null, result, 0, 0, 0, 0);
+			return result;
+		}
+		return search(start, null, reachable, context, limits, startTime);
+	}
+
+	/**
+	 * @param goals
+	 *            the goals of a nearest goal search, or null to search for
+	 *            goal alone
+	 */
+	private PathResult<V> search(V start, V goal, List<V> goals, SearchContext<V> context, SearchLimits limits,
+			long startTime) {
+		int expanded = 0;
+		context.begin();
+		IntMinHeap open = context.getOpen();
+		SuccessorIterator<V> successors = context.getSuccessorIterator(neighbourSource);
+		int startIndex = context.indexOf(start);
+		int goalIndex = -1;
+		int[] goalIndices = null;
+		if (goals == null) {
+			goalIndex = context.indexOf(goal);
+		} else {
+			goalIndices = new int[goals.size()];
+			for (int i = 0; i < goalIndices.length; i++) {
+				goalIndices[i] = context.indexOf(goals.get(i));
+			}
+			Arrays.sort(goalIndices);
+		}
+		int heuristicCost = goals == null ? 1 : goals.size();
+		context.reach(startIndex, 0.0, -1);
+		open.put(startIndex, 0.0);
+		int closestIndex = startIndex;
+		double closestEstimate = getCostEstimate(start, goal, goals);
+		// for the search listener
+		int reopened = 0;
+		int peakOpenSize = 1;
+		int edgesRelaxed = 0;
+		int heuristicCalls = heuristicCost;
+
+		PathResult<V> result = null;
+		while (!isGoal(open.peek(), goalIndex, goalIndices)) {
+			SearchStatus stopped = limits.check(expanded);
+			if (stopped != null) {
+				result = new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime,
+						1.0, stopped, getPath(context, closestIndex, startIndex));
+				break;
+			}
+			int current = open.poll();
+			expanded++;
+			double currentCost = context.getCost(current);
+
+			successors.start(context.getVertex(current));
+			while (successors.next()) {
+				V neighbourVertex = successors.getSuccessor();
+				int neighbour = context.indexOf(neighbourVertex);
+				double cost = currentCost + successors.getWeight();
+				edgesRelaxed++;
+
+				// queue the neighbour, or lower its priority in place if the
+				// new path is better; closed vertices are reopened
+				boolean reached = context.isReached(neighbour);
+				if (!reached || cost < context.getCost(neighbour)) {
+					if (reached && !open.contains(neighbour)) {
+						reopened++;
+					}
+					context.reach(neighbour, cost, current);
+					double estimate = getCostEstimate(neighbourVertex, goal, goals);
+					heuristicCalls += heuristicCost;
+					open.put(neighbour, cost + estimate);
+					if (estimate < closestEstimate) {
+						closestIndex = neighbour;
+						closestEstimate = estimate;
+					}
 				}
 			}
+			if (open.size() > peakOpenSize) {
+				peakOpenSize = open.size();
+			}
 
-			if (open.size() == 0) {
+			if (open.isEmpty()) {
 				// no path possible
-				return null;
+				result = new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime);
+				break;
 			}
 		}
+		if (result == null) {
+			int reachedIndex = open.peek();
+			result = new PathResult<>(getPath(context, reachedIndex, startIndex), context.getCost(reachedIndex),
+					expanded, System.nanoTime() - startTime);
+		}
+
+		notifyListener(start, goals == null ? goal : result.getGoal(), result, reopened, peakOpenSize, edgesRelaxed,
+				heuristicCalls);
+		return result;
+	}
+
+	/**
+	 * @return the labels, built again first if the versioned graph they were
+	 *         built from has changed
+	 */
+	private ComponentLabels<V> getCurrentLabels() {
+		ComponentLabels<V> labels = componentLabels;
+		if (labels != null && !labels.isCurrent()) {
+			labels = labels.getCurrent();
+			componentLabels = labels;
+		}
+		return labels;
+	}
+
+	private double getCostEstimate(V vertex, V goal, List<V> goals) {
+		if (goals == null) {
+			return heuristic.getCostEstimate(vertex, goal);
+		}
+		double estimate = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < goals.size(); i++) {
+			estimate = Math.min(estimate, heuristic.getCostEstimate(vertex, goals.get(i)));
+		}
+		return estimate;
+	}
+
+	private static boolean isGoal(int vertex, int goalIndex, int[] goalIndices) {
+		if (goalIndices == null) {
+			return vertex == goalIndex;
+		}
+		return Arrays.binarySearch(goalIndices, vertex) >= 0;
+	}
+
+	private void notifyListener(V start, V goal, PathResult<V> result, int reopened, int peakOpenSize,
+			int edgesRelaxed, int heuristicCalls) {
+		SearchListener<? super V> listener = searchListener;
+		if (listener != null) {
+			listener.searchFinished(start, goal, new SearchStatistics(result.getStatus(), result.isFound(),
+					result.getExpanded(), reopened, peakOpenSize, edgesRelaxed, heuristicCalls,
+					result.getElapsedNanos()));
+		}
+	}
 
+	/**
+	 * @return the path from end back to start
+	 */
+	private List<V> getPath(SearchContext<V> context, int endIndex, int startIndex) {
 		List<V> path = new ArrayList<>();
-		V current = goal;
-		while (!start.equals(current)) {
-			path.add(current);
-			current = cameFrom.get(current);
+		for (int current = endIndex; current != startIndex; current = context.getCameFrom(current)) {
+			path.add(context.getVertex(current));
 		}
-		path.add(start);
+		path.add(context.getVertex(startIndex));
 		return path;
 	}
 
@@ -0,0 +1,45 @@
+package jape;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads how many bytes the current thread has allocated, so the allocation
+ * of a piece of code can be measured by reading before and after it.
+ *
+ * Relies on the HotSpot extension of {@link ThreadMXBean}; on other virtual
+ * machines {@link #isSupported()} is false and the count is always -1.
+ */
+public final class AllocationMeter {
+
+	private static final com.sun.management.ThreadMXBean THREADS;
+
+	static {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			THREADS = (com.sun.management.ThreadMXBean) threads;
+			THREADS.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			THREADS = null;
+		}
+	}
+
+	private AllocationMeter() {
+	}
+
+	public static boolean isSupported() {
+		return THREADS != null;
+	}
+
+	/**
+	 * @return total bytes allocated by the current thread so far, or -1 if
+	 *         not supported
+	 */
+	public static long getAllocatedBytes() {
+		if (THREADS == null) {
+			return -1;
+		}
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
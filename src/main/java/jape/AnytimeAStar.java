@@ -0,0 +1,199 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * Anytime repairing A* (ARA*).
+ *
+ * Runs weighted A*, with the heuristic multiplied by an inflation factor, to
+ * find a path quickly, then lowers the inflation and improves the path until
+ * the inflation reaches 1 or the budget runs out. Each improvement continues
+ * from the costs already found instead of starting again: only vertices
+ * whose cost dropped since they were expanded are queued again.
+ *
+ * The result always carries a bound on how far from optimal its path may
+ * be. The bound needs an admissible heuristic.
+ */
+public class AnytimeAStar<V, E> {
+
+	private final SimpleDirectedWeightedGraph<V, E> graph;
+	private final Heuristic<V> heuristic;
+	private final double initialInflation;
+	private final double inflationStep;
+	private final OpenListStrategy openListStrategy;
+	private volatile ComponentLabels<V> componentLabels = null;
+
+	public AnytimeAStar(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic) {
+		this(graph, heuristic, 3.0, 0.5, OpenListStrategy.BINARY_HEAP);
+	}
+
+	/**
+	 * @param initialInflation
+	 *            factor the heuristic is multiplied by for the first path
+	 * @param inflationStep
+	 *            how much the factor is lowered by for each improvement
+	 */
+	public AnytimeAStar(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic, double initialInflation,
+			double inflationStep, OpenListStrategy openListStrategy) {
+		if (initialInflation < 1.0)
+			throw new IllegalArgumentException("initialInflation must be at least 1");
+		if (!(inflationStep > 0.0))
+			throw new IllegalArgumentException("inflationStep must be positive");
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.initialInflation = initialInflation;
+		this.inflationStep = inflationStep;
+		this.openListStrategy = openListStrategy;
+	}
+
+	public SimpleDirectedWeightedGraph<V, E> getGraph() {
+		return graph;
+	}
+
+	public ComponentLabels<V> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every search, so that a goal the start
+	 *            cannot reach returns at once; labels of a
+	 *            {@link VersionedGraph} are ignored once it changes, others
+	 *            must be built again, or cleared with null, after the graph
+	 *            changes
+	 */
+	public void setComponentLabels(ComponentLabels<V> componentLabels) {
+		this.componentLabels = componentLabels;
+	}
+
+	public List<V> findpath(V start, V goal, long timeBudgetNanos) {
+		return search(start, goal, timeBudgetNanos, Integer.MAX_VALUE).getPath();
+	}
+
+	/**
+	 * Searches until the path is known to be optimal, or either budget runs
+	 * out.
+	 *
+	 * @return the best path found, with its suboptimality bound; no path if
+	 *         none was found within the budget or none exists
+	 */
+	public PathResult<V> search(V start, V goal, long timeBudgetNanos, int maxExpansions) {
+		long startTime = System.nanoTime();
+		ComponentLabels<V> labels = componentLabels;
+		if (labels != null && !labels.mayReach(start, goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime,
+					Double.POSITIVE_INFINITY, SearchStatus.COMPLETED, null);
+		}
+		final Map<V, Double> costSoFar = new HashMap<>();
+		final Map<V, V> cameFrom = new HashMap<>();
+		final Set<V> closed = new HashSet<>();
+		// vertices whose cost dropped after they were expanded
+		final Set<V> inconsistent = new HashSet<>();
+		OpenList<V> open = openListStrategy.createOpenList();
+
+		double inflation = initialInflation;
+		costSoFar.put(start, 0.0);
+		open.put(start, inflation * heuristic.getCostEstimate(start, goal));
+
+		int expanded = 0;
+		double bound = Double.POSITIVE_INFINITY;
+		boolean outOfBudget = false;
+		while (true) {
+			// improve the path until no queued vertex could lead to a
+			// better one at this inflation
+			while (!open.isEmpty() && getCost(costSoFar, goal) > open.getPriority(open.peek())) {
+				if (expanded >= maxExpansions || System.nanoTime() - startTime >= timeBudgetNanos) {
+					outOfBudget = true;
+					break;
+				}
+				V current = open.poll();
+				closed.add(current);
+				expanded++;
+
+				double currentCost = costSoFar.get(current);
+				for (E edge : graph.outgoingEdgesOf(current)) {
+					V neighbour = graph.getEdgeTarget(edge);
+					double cost = currentCost + graph.getEdgeWeight(edge);
+					if (cost < getCost(costSoFar, neighbour)) {
+						costSoFar.put(neighbour, cost);
+						cameFrom.put(neighbour, current);
+						if (closed.contains(neighbour)) {
+							inconsistent.add(neighbour);
+						} else {
+							open.put(neighbour, cost + inflation * heuristic.getCostEstimate(neighbour, goal));
+						}
+					}
+				}
+			}
+
+			// requeue the inconsistent vertices with the remaining open ones,
+			// finding the lowest uninflated estimate of them all on the way
+			List<V> queued = new ArrayList<>(inconsistent);
+			inconsistent.clear();
+			while (!open.isEmpty()) {
+				queued.add(open.poll());
+			}
+			double lowerBound = Double.POSITIVE_INFINITY;
+			for (V vertex : queued) {
+				lowerBound = Math.min(lowerBound, costSoFar.get(vertex) + heuristic.getCostEstimate(vertex, goal));
+			}
+			double goalCost = getCost(costSoFar, goal);
+			if (goalCost < Double.POSITIVE_INFINITY) {
+				// no queued vertices means every path was tried
+				double achieved = queued.isEmpty() || goalCost <= lowerBound ? 1.0 : goalCost / lowerBound;
+				if (!outOfBudget) {
+					achieved = Math.min(achieved, inflation);
+				}
+				bound = Math.min(bound, achieved);
+			}
+
+			if (outOfBudget || bound <= 1.0 || queued.isEmpty()) {
+				break;
+			}
+
+			inflation = Math.max(1.0, inflation - inflationStep);
+			closed.clear();
+			for (V vertex : queued) {
+				open.put(vertex, costSoFar.get(vertex) + inflation * heuristic.getCostEstimate(vertex, goal));
+			}
+		}
+
+		if (!costSoFar.containsKey(goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime,
+					Double.POSITIVE_INFINITY, getStatus(outOfBudget, expanded, maxExpansions), null);
+		}
+		// vertices on the path may have been improved since the goal was
+		// reached, so add up what the path costs now
+		List<V> path = new ArrayList<>();
+		double pathCost = 0.0;
+		V current = goal;
+		while (!start.equals(current)) {
+			path.add(current);
+			V previous = cameFrom.get(current);
+			pathCost += graph.getEdgeWeight(graph.getEdge(previous, current));
+			current = previous;
+		}
+		path.add(start);
+		return new PathResult<>(path, pathCost, expanded, System.nanoTime() - startTime, bound,
+				getStatus(outOfBudget, expanded, maxExpansions), null);
+	}
+
+	private static SearchStatus getStatus(boolean outOfBudget, int expanded, int maxExpansions) {
+		if (!outOfBudget) {
+			return SearchStatus.COMPLETED;
+		}
+		return expanded >= maxExpansions ? SearchStatus.EXPANSION_LIMIT_REACHED : SearchStatus.DEADLINE_PASSED;
+	}
+
+	private static <V> double getCost(Map<V, Double> costSoFar, V vertex) {
+		Double cost = costSoFar.get(vertex);
+		return cost == null ? Double.POSITIVE_INFINITY : cost;
+	}
+}
@@ -0,0 +1,190 @@
+package jape;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Asynchronous front end to an {@link AStarBuilder}, so callers do not block
+ * while a path is found.
+ *
+ * Identical queries in flight at the same time are coalesced: they share
+ * one search and one future. At most maxPending distinct queries may be
+ * queued or running; beyond that new queries fail at once with a
+ * {@link RejectedExecutionException}, so a burst cannot queue up without
+ * bound. Search contexts are pooled rather than kept per thread, so virtual
+ * threads, which are never reused, do not each allocate one.
+ */
+public class AsyncPathFinder<V, E> {
+
+	private final AStarBuilder<V, E> aStarBuilder;
+	private final ExecutorService executor;
+	private final Semaphore pending;
+	private final int maxPending;
+	private final ConcurrentMap<PathQuery<V>, CompletableFuture<PathResult<V>>> inFlight = new ConcurrentHashMap<>();
+	private final Queue<SearchContext<V>> contexts = new ConcurrentLinkedQueue<>();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param executor
+	 *            runs the searches; shut down by {@link #shutdown()}
+	 * @param maxPending
+	 *            most distinct queries queued or running at once
+	 */
+	public AsyncPathFinder(AStarBuilder<V, E> aStarBuilder, ExecutorService executor, int maxPending) {
+		if (maxPending < 1)
+			throw new IllegalArgumentException("maxPending must be at least 1");
+		this.aStarBuilder = aStarBuilder;
+		this.executor = executor;
+		this.maxPending = maxPending;
+		this.pending = new Semaphore(maxPending);
+	}
+
+	/**
+	 * @return a finder running searches on a fixed pool of daemon threads
+	 */
+	public static <V, E> AsyncPathFinder<V, E> withThreadPool(AStarBuilder<V, E> aStarBuilder, int threads,
+			int maxPending) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+		ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactoryBuilder().setNameFormat("jape-path-%d").setDaemon(true).build());
+		return new AsyncPathFinder<>(aStarBuilder, executor, maxPending);
+	}
+
+	/**
+	 * @return a finder running each search on its own virtual thread
+	 * @throws UnsupportedOperationException
+	 *             if the running JDK has no virtual threads
+	 * @see #isVirtualThreadSupported()
+	 */
+	public static <V, E> AsyncPathFinder<V, E> withVirtualThreads(AStarBuilder<V, E> aStarBuilder,
+			int maxPending) {
+		return new AsyncPathFinder<>(aStarBuilder, createVirtualThreadExecutor(), maxPending);
+	}
+
+	/**
+	 * @return true if the running JDK has virtual threads (21 and later)
+	 */
+	public static boolean isVirtualThreadSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Looked up by reflection, as the project is built for Java 8.
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new UnsupportedOperationException("virtual threads need JDK 21 or later", e);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("could not create virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * @return the result, or a future failed with a
+	 *         {@link RejectedExecutionException} if too many queries are
+	 *         pending; cancelling the future does not stop the search, which
+	 *         may be shared
+	 */
+	public CompletableFuture<PathResult<V>> search(V start, V goal) {
+		final PathQuery<V> query = new PathQuery<>(start, goal);
+		final CompletableFuture<PathResult<V>> future = new CompletableFuture<>();
+		CompletableFuture<PathResult<V>> existing = inFlight.putIfAbsent(query, future);
+		if (existing != null) {
+			coalesced.incrementAndGet();
+			return copy(existing);
+		}
+
+		if (!pending.tryAcquire()) {
+			inFlight.remove(query, future);
+			rejected.incrementAndGet();
+			future.completeExceptionally(
+					new RejectedExecutionException("more than " + maxPending + " queries pending"));
+		} else {
+			try {
+				executor.execute(() -> run(query, future));
+			} catch (RejectedExecutionException e) {
+				// shut down
+				inFlight.remove(query, future);
+				pending.release();
+				rejected.incrementAndGet();
+				future.completeExceptionally(e);
+			}
+		}
+		return copy(future);
+	}
+
+	/**
+	 * Every caller gets its own copy of the shared future, so that one
+	 * completing or cancelling it does not affect the search or the others.
+	 */
+	private static <T> CompletableFuture<T> copy(CompletableFuture<T> future) {
+		return future.thenApply(result -> result);
+	}
+
+	private void run(PathQuery<V> query, CompletableFuture<PathResult<V>> future) {
+		SearchContext<V> context = contexts.poll();
+		if (context == null) {
+			context = new SearchContext<>(aStarBuilder.getOpenListStrategy());
+		}
+		try {
+			PathResult<V> result = aStarBuilder.search(query.getStart(), query.getGoal(), context);
+			// queries after this point search again, in case the graph changed
+			inFlight.remove(query, future);
+			future.complete(result);
+		} catch (Throwable e) {
+			inFlight.remove(query, future);
+			future.completeExceptionally(e);
+		} finally {
+			contexts.offer(context);
+			pending.release();
+		}
+	}
+
+	/**
+	 * @return distinct queries queued or running
+	 */
+	public int getPendingCount() {
+		return maxPending - pending.availablePermits();
+	}
+
+	/**
+	 * @return queries that shared the search of an identical query
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/**
+	 * @return queries refused because too many were pending
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Stops accepting queries; those already pending still complete.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
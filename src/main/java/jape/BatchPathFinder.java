@@ -0,0 +1,88 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many queries against one {@link AStarBuilder} in parallel.
+ *
+ * The queries are split into a few chunks per thread of the executor. Each
+ * chunk searches in the builder's context for the thread it runs on, so a
+ * thread reuses one context across all the chunks and batches it runs, and
+ * writes its results straight into its own part of the output, so workers
+ * share nothing but the graph and the heuristic, which must both be safe to
+ * read from several threads.
+ */
+public class BatchPathFinder<V, E> {
+
+	/**
+	 * Chunks per thread, so that a thread that draws short queries can pick
+	 * up more work.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final AStarBuilder<V, E> aStarBuilder;
+	private final ExecutorService executor;
+	private final int parallelism;
+
+	public BatchPathFinder(AStarBuilder<V, E> aStarBuilder) {
+		this(aStarBuilder, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism());
+	}
+
+	/**
+	 * @param parallelism
+	 *            number of threads the executor will run the queries on
+	 */
+	public BatchPathFinder(AStarBuilder<V, E> aStarBuilder, ExecutorService executor, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		this.aStarBuilder = aStarBuilder;
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return one result per query, in the same order as the queries
+	 */
+	public List<PathResult<V>> findpaths(Collection<PathQuery<V>> queries) {
+		final List<PathQuery<V>> queryList = new ArrayList<>(queries);
+		final List<PathResult<V>> results = new ArrayList<>(Collections.nCopies(queryList.size(), null));
+
+		int chunkCount = Math.max(1, Math.min(queryList.size(), parallelism * CHUNKS_PER_THREAD));
+		int chunkSize = (queryList.size() + chunkCount - 1) / chunkCount;
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int chunkStart = 0; chunkStart < queryList.size(); chunkStart += chunkSize) {
+			final int from = chunkStart;
+			final int to = Math.min(chunkStart + chunkSize, queryList.size());
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = from; i < to; i++) {
+						PathQuery<V> query = queryList.get(i);
+						results.set(i, aStarBuilder.search(query.getStart(), query.getGoal()));
+					}
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while finding paths", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("failed to find paths", e.getCause());
+		}
+		return results;
+	}
+}
@@ -0,0 +1,180 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * A* that searches forward from the start over outgoing edges and backward
+ * from the goal over incoming edges at the same time.
+ *
+ * Both directions use the average potential, half the difference between
+ * the estimate to the goal and the estimate from the start, so that the two
+ * searches agree on reduced edge costs. The search can then stop as soon as
+ * the smallest forward and backward priorities add up to the best path seen
+ * so far. This is only correct when the heuristic is consistent, as the
+ * straight line distance is on graphs whose edges are at least as long as
+ * the distance they span.
+ */
+public class BidirectionalAStar<V, E> {
+
+	private final SimpleDirectedWeightedGraph<V, E> graph;
+	private final Heuristic<V> heuristic;
+	private final OpenListStrategy openListStrategy;
+	private volatile ComponentLabels<V> componentLabels = null;
+
+	public BidirectionalAStar(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic) {
+		this(graph, heuristic, OpenListStrategy.BINARY_HEAP);
+	}
+
+	public BidirectionalAStar(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic,
+			OpenListStrategy openListStrategy) {
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.openListStrategy = openListStrategy;
+	}
+
+	public ComponentLabels<V> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every search, so that a goal the start
+	 *            cannot reach returns at once; labels of a
+	 *            {@link VersionedGraph} are ignored once it changes, others
+	 *            must be built again, or cleared with null, after the graph
+	 *            changes
+	 */
+	public void setComponentLabels(ComponentLabels<V> componentLabels) {
+		this.componentLabels = componentLabels;
+	}
+
+	public List<V> findpath(V start, V goal) {
+		return search(start, goal).getPath();
+	}
+
+	public PathResult<V> search(V start, V goal) {
+		long startTime = System.nanoTime();
+		if (start.equals(goal)) {
+			List<V> path = new ArrayList<>();
+			path.add(start);
+			return new PathResult<>(path, 0.0, 0, System.nanoTime() - startTime);
+		}
+		ComponentLabels<V> labels = componentLabels;
+		if (labels != null && !labels.mayReach(start, goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+		}
+
+		final Map<V, Double> forwardCost = new HashMap<>();
+		final Map<V, Double> backwardCost = new HashMap<>();
+		// previous vertex on the path from start
+		final Map<V, V> cameFrom = new HashMap<>();
+		// next vertex on the path to goal
+		final Map<V, V> goesTo = new HashMap<>();
+		final Set<V> forwardClosed = new HashSet<>();
+		final Set<V> backwardClosed = new HashSet<>();
+
+		OpenList<V> forwardOpen = openListStrategy.createOpenList();
+		OpenList<V> backwardOpen = openListStrategy.createOpenList();
+		forwardCost.put(start, 0.0);
+		forwardOpen.put(start, getForwardPotential(start, start, goal));
+		backwardCost.put(goal, 0.0);
+		backwardOpen.put(goal, -getForwardPotential(goal, start, goal));
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		V meeting = null;
+		int expanded = 0;
+
+		while (!forwardOpen.isEmpty() && !backwardOpen.isEmpty()) {
+			double forwardTop = forwardOpen.getPriority(forwardOpen.peek());
+			double backwardTop = backwardOpen.getPriority(backwardOpen.peek());
+			if (forwardTop + backwardTop >= bestCost) {
+				// no undiscovered path can be shorter
+				break;
+			}
+			expanded++;
+
+			// expand whichever side has the smaller frontier
+			if (forwardOpen.size() <= backwardOpen.size()) {
+				V current = forwardOpen.poll();
+				forwardClosed.add(current);
+				double currentCost = forwardCost.get(current);
+				for (E edge : graph.outgoingEdgesOf(current)) {
+					V neighbour = graph.getEdgeTarget(edge);
+					double cost = currentCost + graph.getEdgeWeight(edge);
+					if (forwardClosed.contains(neighbour)) {
+						continue;
+					}
+					Double knownCost = forwardCost.get(neighbour);
+					if (knownCost == null || cost < knownCost) {
+						forwardCost.put(neighbour, cost);
+						cameFrom.put(neighbour, current);
+						forwardOpen.put(neighbour, cost + getForwardPotential(neighbour, start, goal));
+					}
+					Double remainingCost = backwardCost.get(neighbour);
+					if (remainingCost != null && cost + remainingCost < bestCost) {
+						bestCost = cost + remainingCost;
+						meeting = neighbour;
+					}
+				}
+			} else {
+				V current = backwardOpen.poll();
+				backwardClosed.add(current);
+				double currentCost = backwardCost.get(current);
+				for (E edge : graph.incomingEdgesOf(current)) {
+					V neighbour = graph.getEdgeSource(edge);
+					double cost = currentCost + graph.getEdgeWeight(edge);
+					if (backwardClosed.contains(neighbour)) {
+						continue;
+					}
+					Double knownCost = backwardCost.get(neighbour);
+					if (knownCost == null || cost < knownCost) {
+						backwardCost.put(neighbour, cost);
+						goesTo.put(neighbour, current);
+						backwardOpen.put(neighbour, cost - getForwardPotential(neighbour, start, goal));
+					}
+					Double soFarCost = forwardCost.get(neighbour);
+					if (soFarCost != null && cost + soFarCost < bestCost) {
+						bestCost = cost + soFarCost;
+						meeting = neighbour;
+					}
+				}
+			}
+		}
+
+		if (meeting == null) {
+			// no path possible
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime);
+		}
+
+		List<V> path = new ArrayList<>();
+		V current = meeting;
+		while (!goal.equals(current)) {
+			path.add(current);
+			current = goesTo.get(current);
+		}
+		path.add(goal);
+		Collections.reverse(path);
+		current = meeting;
+		while (!start.equals(current)) {
+			current = cameFrom.get(current);
+			path.add(current);
+		}
+		return new PathResult<>(path, bestCost, expanded, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Potential used by the forward search; the backward search uses the
+	 * negation of it.
+	 */
+	private double getForwardPotential(V vertex, V start, V goal) {
+		return (heuristic.getCostEstimate(vertex, goal) - heuristic.getCostEstimate(start, vertex)) / 2.0;
+	}
+}
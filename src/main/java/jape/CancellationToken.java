@@ -0,0 +1,18 @@
+package jape;
+
+/**
+ * Lets another thread ask a running search to stop. The search checks the
+ * token between expansions, so it stops soon after, not at once.
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,97 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * A* over a {@link CompactGraph}. Costs, parents and open/closed state are
+ * held in primitive arrays indexed by vertex number, so a query does no
+ * boxing or hashing apart from looking up the start and goal.
+ *
+ * Returns the same paths as {@link AStarBuilder}, goal first. The graph's
+ * {@link ComponentLabels} are built with it, so a goal the start cannot
+ * reach is rejected without searching.
+ */
+public class CompactAStar<V> {
+
+	private static final byte UNSEEN = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	private final CompactGraph<V> graph;
+	private final Heuristic<V> heuristic;
+	private final ComponentLabels<V> componentLabels;
+
+	public CompactAStar(CompactGraph<V> graph, Heuristic<V> heuristic) {
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.componentLabels = new ComponentLabels<>(graph);
+	}
+
+	public <E> CompactAStar(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic) {
+		this(CompactGraph.build(graph), heuristic);
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	public List<V> findpath(V start, V goal) {
+		if (start.equals(goal)) {
+			List<V> path = new ArrayList<>();
+			path.add(start);
+			return path;
+		}
+		int startIndex = graph.getIndex(start);
+		if (startIndex < 0)
+			throw new IllegalArgumentException("start must be in the graph");
+		int goalIndex = graph.getIndex(goal);
+		if (goalIndex < 0 || !componentLabels.mayReach(startIndex, goalIndex)) {
+			// no path possible
+			return null;
+		}
+
+		int n = graph.getVertexCount();
+		double[] costSoFar = new double[n];
+		int[] cameFrom = new int[n];
+		byte[] state = new byte[n];
+		IntMinHeap open = new IntMinHeap(n);
+
+		costSoFar[startIndex] = 0.0;
+		cameFrom[startIndex] = -1;
+		state[startIndex] = OPEN;
+		open.put(startIndex, 0.0);
+
+		while (open.peek() != goalIndex) {
+			int current = open.poll();
+			state[current] = CLOSED;
+			double currentCost = costSoFar[current];
+
+			for (int edge = graph.getFirstEdge(current); edge < graph.getEdgeEnd(current); edge++) {
+				int neighbour = graph.getEdgeTarget(edge);
+				double cost = currentCost + graph.getEdgeWeight(edge);
+
+				// a better path re-opens the neighbour, even if it was closed
+				if (state[neighbour] == UNSEEN || cost < costSoFar[neighbour]) {
+					costSoFar[neighbour] = cost;
+					cameFrom[neighbour] = current;
+					state[neighbour] = OPEN;
+					open.put(neighbour, cost + heuristic.getCostEstimate(graph.getVertex(neighbour), goal));
+				}
+			}
+
+			if (open.isEmpty()) {
+				// no path possible
+				return null;
+			}
+		}
+
+		List<V> path = new ArrayList<>();
+		for (int current = goalIndex; current != -1; current = cameFrom[current]) {
+			path.add(graph.getVertex(current));
+		}
+		return path;
+	}
+}
@@ -0,0 +1,61 @@
+package jape;
+
+import java.util.Arrays;
+
+/**
+ * One-to-all shortest path distances over a {@link CompactGraph}.
+ */
+public class CompactDijkstra {
+
+	/**
+	 * @return the distance from source to every vertex, positive infinity
+	 *         where unreachable
+	 */
+	public static double[] distancesFrom(CompactGraph<?> graph, int source) {
+		int n = graph.getVertexCount();
+		double[] distance = new double[n];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		IntMinHeap open = new IntMinHeap(n);
+		distance[source] = 0.0;
+		open.put(source, 0.0);
+		while (!open.isEmpty()) {
+			int current = open.poll();
+			double currentDistance = distance[current];
+			for (int edge = graph.getFirstEdge(current); edge < graph.getEdgeEnd(current); edge++) {
+				int neighbour = graph.getEdgeTarget(edge);
+				double newDistance = currentDistance + graph.getEdgeWeight(edge);
+				if (newDistance < distance[neighbour]) {
+					distance[neighbour] = newDistance;
+					open.put(neighbour, newDistance);
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * @return the distance from every vertex to target, positive infinity
+	 *         where target is unreachable
+	 */
+	public static double[] distancesTo(CompactGraph<?> graph, int target) {
+		int n = graph.getVertexCount();
+		double[] distance = new double[n];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		IntMinHeap open = new IntMinHeap(n);
+		distance[target] = 0.0;
+		open.put(target, 0.0);
+		while (!open.isEmpty()) {
+			int current = open.poll();
+			double currentDistance = distance[current];
+			for (int edge = graph.getFirstIncomingEdge(current); edge < graph.getIncomingEdgeEnd(current); edge++) {
+				int neighbour = graph.getIncomingEdgeSource(edge);
+				double newDistance = currentDistance + graph.getIncomingEdgeWeight(edge);
+				if (newDistance < distance[neighbour]) {
+					distance[neighbour] = newDistance;
+					open.put(neighbour, newDistance);
+				}
+			}
+		}
+		return distance;
+	}
+}
@@ -0,0 +1,188 @@
+package jape;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * Immutable compressed-sparse-row copy of a directed weighted graph.
+ * Vertices are numbered 0..n-1 and the outgoing edges of vertex v are the
+ * edge numbers from getFirstEdge(v) (inclusive) to getEdgeEnd(v) (exclusive).
+ *
+ * The incoming edges are held in a second, transposed, copy with its own
+ * numbering, from getFirstIncomingEdge(v) to getIncomingEdgeEnd(v).
+ *
+ * The edge columns are int and double buffers, which wrap heap arrays for
+ * a graph built in this process, or are views of a mapped file for one read
+ * by {@link RoutingGraphFile}. Only the vertices and their index are always
+ * on the heap.
+ */
+public class CompactGraph<V> {
+
+	private final List<V> vertices;
+	private final Map<V, Integer> vertexIndex;
+
+	/**
+	 * Offset of the first outgoing edge of each vertex, with one extra entry
+	 * at the end so that the edges of v end at firstEdge[v + 1].
+	 */
+	private final IntBuffer firstEdge;
+	private final IntBuffer edgeTarget;
+	private final DoubleBuffer edgeWeight;
+
+	private final IntBuffer firstIncomingEdge;
+	private final IntBuffer incomingEdgeSource;
+	private final DoubleBuffer incomingEdgeWeight;
+
+	protected CompactGraph(List<V> vertices, int[] firstEdge, int[] edgeTarget, double[] edgeWeight) {
+		this(vertices, indexVertices(vertices), firstEdge, edgeTarget, edgeWeight);
+	}
+
+	private CompactGraph(List<V> vertices, Map<V, Integer> vertexIndex, int[] firstEdge, int[] edgeTarget,
+			double[] edgeWeight) {
+		if (firstEdge.length != vertices.size() + 1)
+			throw new IllegalArgumentException("firstEdge must have one entry per vertex plus one");
+		if (edgeTarget.length != edgeWeight.length)
+			throw new IllegalArgumentException("edgeTarget and edgeWeight must be the same length");
+		this.vertices = vertices;
+		this.vertexIndex = vertexIndex;
+		this.firstEdge = IntBuffer.wrap(firstEdge);
+		this.edgeTarget = IntBuffer.wrap(edgeTarget);
+		this.edgeWeight = DoubleBuffer.wrap(edgeWeight);
+
+		// transpose the edges with a counting sort on target
+		int n = vertices.size();
+		int[] firstIncoming = new int[n + 1];
+		int[] incomingSource = new int[edgeTarget.length];
+		double[] incomingWeight = new double[edgeTarget.length];
+		for (int edge = 0; edge < edgeTarget.length; edge++) {
+			firstIncoming[edgeTarget[edge] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			firstIncoming[v + 1] += firstIncoming[v];
+		}
+		int[] next = Arrays.copyOf(firstIncoming, n);
+		for (int v = 0; v < n; v++) {
+			for (int edge = firstEdge[v]; edge < firstEdge[v + 1]; edge++) {
+				int incoming = next[edgeTarget[edge]]++;
+				incomingSource[incoming] = v;
+				incomingWeight[incoming] = edgeWeight[edge];
+			}
+		}
+		this.firstIncomingEdge = IntBuffer.wrap(firstIncoming);
+		this.incomingEdgeSource = IntBuffer.wrap(incomingSource);
+		this.incomingEdgeWeight = DoubleBuffer.wrap(incomingWeight);
+	}
+
+	/**
+	 * Uses columns that are already laid out, transpose included, such as
+	 * views of a file. The buffers are read with absolute gets only, so
+	 * their positions do not matter.
+	 */
+	CompactGraph(List<V> vertices, IntBuffer firstEdge, IntBuffer edgeTarget, DoubleBuffer edgeWeight,
+			IntBuffer firstIncomingEdge, IntBuffer incomingEdgeSource, DoubleBuffer incomingEdgeWeight) {
+		int n = vertices.size();
+		int m = edgeTarget.limit();
+		if (firstEdge.limit() != n + 1 || firstIncomingEdge.limit() != n + 1)
+			throw new IllegalArgumentException("firstEdge columns must have one entry per vertex plus one");
+		if (edgeWeight.limit() != m || incomingEdgeSource.limit() != m || incomingEdgeWeight.limit() != m)
+			throw new IllegalArgumentException("edge columns must be the same length");
+		this.vertices = vertices;
+		this.vertexIndex = indexVertices(vertices);
+		this.firstEdge = firstEdge;
+		this.edgeTarget = edgeTarget;
+		this.edgeWeight = edgeWeight;
+		this.firstIncomingEdge = firstIncomingEdge;
+		this.incomingEdgeSource = incomingEdgeSource;
+		this.incomingEdgeWeight = incomingEdgeWeight;
+	}
+
+	private static <V> Map<V, Integer> indexVertices(List<V> vertices) {
+		Map<V, Integer> index = new HashMap<>();
+		for (int i = 0; i < vertices.size(); i++) {
+			index.put(vertices.get(i), i);
+		}
+		return index;
+	}
+
+	public int getVertexCount() {
+		return vertices.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeTarget.limit();
+	}
+
+	public V getVertex(int index) {
+		return vertices.get(index);
+	}
+
+	/**
+	 * @return the number of the vertex, or -1 if it is not in the graph
+	 */
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		if (index == null) {
+			return -1;
+		}
+		return index;
+	}
+
+	public int getFirstEdge(int vertex) {
+		return firstEdge.get(vertex);
+	}
+
+	public int getEdgeEnd(int vertex) {
+		return firstEdge.get(vertex + 1);
+	}
+
+	public int getEdgeTarget(int edge) {
+		return edgeTarget.get(edge);
+	}
+
+	public double getEdgeWeight(int edge) {
+		return edgeWeight.get(edge);
+	}
+
+	public int getFirstIncomingEdge(int vertex) {
+		return firstIncomingEdge.get(vertex);
+	}
+
+	public int getIncomingEdgeEnd(int vertex) {
+		return firstIncomingEdge.get(vertex + 1);
+	}
+
+	public int getIncomingEdgeSource(int incomingEdge) {
+		return incomingEdgeSource.get(incomingEdge);
+	}
+
+	public double getIncomingEdgeWeight(int incomingEdge) {
+		return incomingEdgeWeight.get(incomingEdge);
+	}
+
+	public static <V, E> CompactGraph<V> build(SimpleDirectedWeightedGraph<V, E> graph) {
+		List<V> vertices = new ArrayList<>(graph.vertexSet());
+		Map<V, Integer> index = indexVertices(vertices);
+
+		int[] firstEdge = new int[vertices.size() + 1];
+		int[] edgeTarget = new int[graph.edgeSet().size()];
+		double[] edgeWeight = new double[edgeTarget.length];
+		int edge = 0;
+		for (int i = 0; i < vertices.size(); i++) {
+			firstEdge[i] = edge;
+			for (E e : graph.outgoingEdgesOf(vertices.get(i))) {
+				edgeTarget[edge] = index.get(graph.getEdgeTarget(e));
+				edgeWeight[edge] = graph.getEdgeWeight(e);
+				edge++;
+			}
+		}
+		firstEdge[vertices.size()] = edge;
+		return new CompactGraph<>(vertices, index, firstEdge, edgeTarget, edgeWeight);
+	}
+}
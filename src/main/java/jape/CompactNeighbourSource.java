@@ -0,0 +1,56 @@
+package jape;
+
+/**
+ * Successors from the outgoing edge arrays of a {@link CompactGraph}.
+ * Iterating allocates nothing.
+ */
+public class CompactNeighbourSource<V> implements NeighbourSource<V> {
+
+	private final CompactGraph<V> graph;
+
+	public CompactNeighbourSource(CompactGraph<V> graph) {
+		this.graph = graph;
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SuccessorIterator<V> newSuccessorIterator() {
+		return new SuccessorIterator<V>() {
+			private int edge;
+			private int edgeEnd;
+
+			@Override
+			public void start(V vertex) {
+				int index = graph.getIndex(vertex);
+				if (index < 0)
+					throw new IllegalArgumentException("vertex is not in the graph");
+				// one before the first, as next is called before each edge
+				edge = graph.getFirstEdge(index) - 1;
+				edgeEnd = graph.getEdgeEnd(index);
+			}
+
+			@Override
+			public boolean next() {
+				if (edge + 1 >= edgeEnd) {
+					edge = edgeEnd;
+					return false;
+				}
+				edge++;
+				return true;
+			}
+
+			@Override
+			public V getSuccessor() {
+				return graph.getVertex(graph.getEdgeTarget(edge));
+			}
+
+			@Override
+			public double getWeight() {
+				return graph.getEdgeWeight(edge);
+			}
+		};
+	}
+}
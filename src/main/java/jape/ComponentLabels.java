@@ -0,0 +1,248 @@
+package jape;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connected component labels of a graph, so that a query between vertices
+ * that cannot reach each other, such as sites on different islands, can be
+ * answered without searching.
+ *
+ * Each vertex has two labels: its weakly connected component, ignoring the
+ * direction of edges, and its strongly connected component. Strongly
+ * connected components are numbered as Tarjan's algorithm completes them,
+ * so every component reachable from another has a lower number than it.
+ * Together these prove a target unreachable when the weak labels differ or
+ * the target's strong label is higher than the source's.
+ *
+ * The labels describe the graph when they were built. Labels built from a
+ * {@link VersionedGraph} remember its version, and once it moves on
+ * {@link #mayReach(Object, Object)} answers true for every pair, as if there
+ * were no labels, until {@link #getCurrent()} builds them again. Labels of
+ * any other graph must be built again by hand after edges are added or
+ * removed.
+ */
+public class ComponentLabels<V> {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final CompactGraph<V> graph;
+	private final int[] component;
+	private final int[] strongComponent;
+	private final int componentCount;
+	private final int strongComponentCount;
+	/**
+	 * The graph the labels were built from and its version then, or null if
+	 * it is not versioned.
+	 */
+	private final VersionedGraph<V, ?> versionedGraph;
+	private final long version;
+
+	public ComponentLabels(CompactGraph<V> graph) {
+		this(graph, null, 0L);
+	}
+
+	private ComponentLabels(CompactGraph<V> graph, VersionedGraph<V, ?> versionedGraph, long version) {
+		long startTime = System.nanoTime();
+		this.graph = graph;
+		this.versionedGraph = versionedGraph;
+		this.version = version;
+		int n = graph.getVertexCount();
+
+		// union-find over the edges, then renumber the roots from 0
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++) {
+			parent[v] = v;
+		}
+		for (int v = 0; v < n; v++) {
+			for (int edge = graph.getFirstEdge(v); edge < graph.getEdgeEnd(v); edge++) {
+				int a = find(parent, v);
+				int b = find(parent, graph.getEdgeTarget(edge));
+				if (a != b) {
+					parent[Math.max(a, b)] = Math.min(a, b);
+				}
+			}
+		}
+		component = new int[n];
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			int root = find(parent, v);
+			// roots are the lowest vertex of their component, so are seen
+			// first
+			component[v] = root == v ? count++ : component[root];
+		}
+		componentCount = count;
+
+		strongComponent = new int[n];
+		strongComponentCount = labelStrongComponents(graph, strongComponent);
+		log.info("Labelled " + componentCount + " components and " + strongComponentCount
+				+ " strongly connected components over " + n + " vertices in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+	}
+
+	/**
+	 * @param graph
+	 *            if a {@link VersionedGraph}, the labels know when it has
+	 *            changed since
+	 */
+	public static <V, E> ComponentLabels<V> build(SimpleDirectedWeightedGraph<V, E> graph) {
+		if (graph instanceof VersionedGraph) {
+			VersionedGraph<V, E> versionedGraph = (VersionedGraph<V, E>) graph;
+			// read first, so a change made while building leaves them stale
+			long version = versionedGraph.getVersion();
+			return new ComponentLabels<>(CompactGraph.build(graph), versionedGraph, version);
+		}
+		return new ComponentLabels<>(CompactGraph.build(graph));
+	}
+
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			// halve the path on the way up
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * Tarjan's algorithm, with an explicit stack so long paths cannot
+	 * overflow the thread's stack.
+	 *
+	 * @return the number of strongly connected components
+	 */
+	private static int labelStrongComponents(CompactGraph<?> graph, int[] label) {
+		int n = graph.getVertexCount();
+		// order each vertex was first visited in, from 1; 0 is unvisited
+		int[] order = new int[n];
+		int[] lowLink = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int stackSize = 0;
+		// the depth first search: each vertex with the next edge to follow
+		int[] callVertex = new int[n];
+		int[] callEdge = new int[n];
+		int depth = 0;
+		int visited = 0;
+		int count = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (order[root] != 0) {
+				continue;
+			}
+			order[root] = lowLink[root] = ++visited;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			callVertex[0] = root;
+			callEdge[0] = graph.getFirstEdge(root);
+			depth = 1;
+			while (depth > 0) {
+				int v = callVertex[depth - 1];
+				int edge = callEdge[depth - 1];
+				if (edge < graph.getEdgeEnd(v)) {
+					callEdge[depth - 1]++;
+					int w = graph.getEdgeTarget(edge);
+					if (order[w] == 0) {
+						order[w] = lowLink[w] = ++visited;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						callVertex[depth] = w;
+						callEdge[depth] = graph.getFirstEdge(w);
+						depth++;
+					} else if (onStack[w]) {
+						lowLink[v] = Math.min(lowLink[v], order[w]);
+					}
+					continue;
+				}
+				// all edges followed
+				if (lowLink[v] == order[v]) {
+					int w;
+					do {
+						w = stack[--stackSize];
+						onStack[w] = false;
+						label[w] = count;
+					} while (w != v);
+					count++;
+				}
+				depth--;
+				if (depth > 0) {
+					int caller = callVertex[depth - 1];
+					lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+				}
+			}
+		}
+		return count;
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return false if the labels were built from a {@link VersionedGraph}
+	 *         that has changed since; true otherwise
+	 */
+	public boolean isCurrent() {
+		return versionedGraph == null || versionedGraph.getVersion() == version;
+	}
+
+	/**
+	 * @return these labels if they are current, otherwise labels built
+	 *         again from the versioned graph as it is now
+	 */
+	public ComponentLabels<V> getCurrent() {
+		if (isCurrent()) {
+			return this;
+		}
+		return build(versionedGraph);
+	}
+
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	public int getStrongComponentCount() {
+		return strongComponentCount;
+	}
+
+	/**
+	 * @return the weakly connected component of the vertex numbered in the
+	 *         graph
+	 */
+	public int getComponent(int vertex) {
+		return component[vertex];
+	}
+
+	public int getStrongComponent(int vertex) {
+		return strongComponent[vertex];
+	}
+
+	/**
+	 * @return false if there is certainly no path from source to target;
+	 *         true if there is one, or if vertices in different strongly
+	 *         connected components may be joined through others
+	 */
+	public boolean mayReach(int source, int target) {
+		if (component[source] != component[target]) {
+			return false;
+		}
+		// components reachable from the source's were completed before it
+		return strongComponent[target] <= strongComponent[source];
+	}
+
+	/**
+	 * As {@link #mayReach(int, int)}; true if either vertex was not in the
+	 * graph, or the labels are not current, as nothing is known then.
+	 */
+	public boolean mayReach(V source, V target) {
+		if (!isCurrent()) {
+			return true;
+		}
+		int sourceIndex = graph.getIndex(source);
+		int targetIndex = graph.getIndex(target);
+		if (sourceIndex < 0 || targetIndex < 0) {
+			return true;
+		}
+		return mayReach(sourceIndex, targetIndex);
+	}
+}
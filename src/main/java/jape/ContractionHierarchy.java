@@ -0,0 +1,569 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contraction hierarchy over a {@link CompactGraph}, for answering many
+ * queries against a graph that does not change.
+ *
+ * Vertices are contracted one at a time, least important first, adding a
+ * shortcut between two neighbours whenever the only shortest path between
+ * them ran through the contracted vertex. A query then only has to search
+ * upwards, to more important vertices, from both ends, which settles a few
+ * hundred vertices however far apart start and goal are. Shortcuts remember
+ * the vertex they bypass, so the path can be unpacked back into the
+ * original edges.
+ */
+public class ContractionHierarchy<V> {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * How many vertices a witness search may settle before giving up. Giving
+	 * up early adds a shortcut that was not needed, which costs query time
+	 * but not correctness.
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 100;
+
+	private final CompactGraph<V> graph;
+
+	/**
+	 * Order in which each vertex was contracted.
+	 */
+	private final int[] rank;
+
+	/**
+	 * Edges from each vertex to a higher ranked vertex, as CSR.
+	 */
+	private final int[] upFirst;
+	private final int[] upTarget;
+	private final double[] upWeight;
+	/**
+	 * Vertex bypassed by each edge, or -1 for an edge of the original graph.
+	 */
+	private final int[] upMiddle;
+
+	/**
+	 * Edges into each vertex from a higher ranked vertex, as CSR.
+	 */
+	private final int[] downFirst;
+	private final int[] downSource;
+	private final double[] downWeight;
+	private final int[] downMiddle;
+
+	private final int shortcutCount;
+	private final long preprocessingNanos;
+	private final ComponentLabels<V> componentLabels;
+
+	private final ThreadLocal<QueryState> queryState = new ThreadLocal<QueryState>() {
+		@Override
+		protected QueryState initialValue() {
+			return new QueryState(rank.length);
+		}
+	};
+
+	public <E> ContractionHierarchy(SimpleDirectedWeightedGraph<V, E> graph) {
+		this(CompactGraph.build(graph));
+	}
+
+	public ContractionHierarchy(CompactGraph<V> graph) {
+		long startTime = System.nanoTime();
+		this.graph = graph;
+		int n = graph.getVertexCount();
+
+		Contractor contractor = new Contractor(graph);
+		rank = contractor.contractAll();
+		shortcutCount = contractor.shortcutCount;
+		componentLabels = new ComponentLabels<>(graph);
+
+		// once a vertex is contracted its lists only hold edges to vertices
+		// contracted after it, which are exactly its upward edges
+		upFirst = new int[n + 1];
+		downFirst = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			upFirst[v + 1] = upFirst[v] + contractor.out[v].size;
+			downFirst[v + 1] = downFirst[v] + contractor.in[v].size;
+		}
+		upTarget = new int[upFirst[n]];
+		upWeight = new double[upFirst[n]];
+		upMiddle = new int[upFirst[n]];
+		downSource = new int[downFirst[n]];
+		downWeight = new double[downFirst[n]];
+		downMiddle = new int[downFirst[n]];
+		for (int v = 0; v < n; v++) {
+			EdgeList out = contractor.out[v];
+			System.arraycopy(out.vertex, 0, upTarget, upFirst[v], out.size);
+			System.arraycopy(out.weight, 0, upWeight, upFirst[v], out.size);
+			System.arraycopy(out.middle, 0, upMiddle, upFirst[v], out.size);
+			EdgeList in = contractor.in[v];
+			System.arraycopy(in.vertex, 0, downSource, downFirst[v], in.size);
+			System.arraycopy(in.weight, 0, downWeight, downFirst[v], in.size);
+			System.arraycopy(in.middle, 0, downMiddle, downFirst[v], in.size);
+		}
+
+		preprocessingNanos = System.nanoTime() - startTime;
+		log.info("Contracted " + n + " vertices adding " + shortcutCount + " shortcuts in "
+				+ (preprocessingNanos / 1000000) + "ms");
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	public long getPreprocessingNanos() {
+		return preprocessingNanos;
+	}
+
+	public List<V> findpath(V start, V goal) {
+		return search(start, goal).getPath();
+	}
+
+	/**
+	 * Finds the shortest path with a bidirectional upward search. The path
+	 * is unpacked into original vertices, goal first, as
+	 * {@link AStarBuilder#findpath(Object, Object)} returns it.
+	 */
+	public PathResult<V> search(V start, V goal) {
+		long startTime = System.nanoTime();
+		int startIndex = graph.getIndex(start);
+		if (startIndex < 0)
+			throw new IllegalArgumentException("start must be in the graph");
+		int goalIndex = graph.getIndex(goal);
+		if (goalIndex < 0 || !componentLabels.mayReach(startIndex, goalIndex)) {
+			// no path possible
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+		}
+
+		QueryState state = queryState.get();
+		state.reset();
+		state.reach(true, startIndex, 0.0, -1, -1);
+		state.reach(false, goalIndex, 0.0, -1, -1);
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+		int expanded = 0;
+		IntMinHeap forwardOpen = state.forwardOpen;
+		IntMinHeap backwardOpen = state.backwardOpen;
+		while (true) {
+			// a direction is finished once nothing left in it can beat the
+			// best path
+			if (!forwardOpen.isEmpty() && forwardOpen.peekKey() >= bestCost) {
+				forwardOpen.clear();
+			}
+			if (!backwardOpen.isEmpty() && backwardOpen.peekKey() >= bestCost) {
+				backwardOpen.clear();
+			}
+			if (forwardOpen.isEmpty() && backwardOpen.isEmpty()) {
+				break;
+			}
+			expanded++;
+
+			if (backwardOpen.isEmpty()
+					|| (!forwardOpen.isEmpty() && forwardOpen.peekKey() <= backwardOpen.peekKey())) {
+				int current = forwardOpen.poll();
+				double currentCost = state.forwardCost[current];
+				if (state.isReached(false, current) && currentCost + state.backwardCost[current] < bestCost) {
+					bestCost = currentCost + state.backwardCost[current];
+					meeting = current;
+				}
+				if (isForwardStalled(state, current, currentCost)) {
+					continue;
+				}
+				for (int edge = upFirst[current]; edge < upFirst[current + 1]; edge++) {
+					int neighbour = upTarget[edge];
+					double cost = currentCost + upWeight[edge];
+					if (!state.isReached(true, neighbour) || cost < state.forwardCost[neighbour]) {
+						state.reach(true, neighbour, cost, current, edge);
+					}
+				}
+			} else {
+				int current = backwardOpen.poll();
+				double currentCost = state.backwardCost[current];
+				if (state.isReached(true, current) && currentCost + state.forwardCost[current] < bestCost) {
+					bestCost = currentCost + state.forwardCost[current];
+					meeting = current;
+				}
+				if (isBackwardStalled(state, current, currentCost)) {
+					continue;
+				}
+				for (int edge = downFirst[current]; edge < downFirst[current + 1]; edge++) {
+					int neighbour = downSource[edge];
+					double cost = currentCost + downWeight[edge];
+					if (!state.isReached(false, neighbour) || cost < state.backwardCost[neighbour]) {
+						state.reach(false, neighbour, cost, current, edge);
+					}
+				}
+			}
+		}
+
+		if (meeting < 0) {
+			// no path possible
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime);
+		}
+
+		// unpack start to meeting, then meeting to goal
+		List<Integer> upward = new ArrayList<>();
+		for (int v = meeting; v != startIndex; v = state.forwardParent[v]) {
+			upward.add(v);
+		}
+		List<V> forwardPath = new ArrayList<>();
+		forwardPath.add(start);
+		for (int i = upward.size() - 1; i >= 0; i--) {
+			int v = upward.get(i);
+			unpack(forwardPath, state.forwardParent[v], v, upMiddle[state.forwardParentEdge[v]]);
+		}
+		for (int v = meeting; v != goalIndex; v = state.backwardParent[v]) {
+			unpack(forwardPath, v, state.backwardParent[v], downMiddle[state.backwardParentEdge[v]]);
+		}
+
+		List<V> path = new ArrayList<>(forwardPath.size());
+		for (int i = forwardPath.size() - 1; i >= 0; i--) {
+			path.add(forwardPath.get(i));
+		}
+		return new PathResult<>(path, bestCost, expanded, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Stall-on-demand: if a higher ranked vertex already reached has an edge
+	 * down to this one that is shorter than the upward path found to it, the
+	 * label is not a shortest path and need not be expanded.
+	 */
+	private boolean isForwardStalled(QueryState state, int vertex, double cost) {
+		for (int edge = downFirst[vertex]; edge < downFirst[vertex + 1]; edge++) {
+			int higher = downSource[edge];
+			if (state.isReached(true, higher) && state.forwardCost[higher] + downWeight[edge] < cost) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isBackwardStalled(QueryState state, int vertex, double cost) {
+		for (int edge = upFirst[vertex]; edge < upFirst[vertex + 1]; edge++) {
+			int higher = upTarget[edge];
+			if (state.isReached(false, higher) && state.backwardCost[higher] + upWeight[edge] < cost) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Appends the original vertices of the edge from source to target to
+	 * path, excluding source itself.
+	 */
+	private void unpack(List<V> path, int source, int target, int middle) {
+		if (middle < 0) {
+			path.add(graph.getVertex(target));
+			return;
+		}
+		// the bypassed vertex ranks below both ends
+		unpack(path, source, middle, findDownMiddle(source, middle));
+		unpack(path, middle, target, findUpMiddle(middle, target));
+	}
+
+	private int findUpMiddle(int source, int target) {
+		for (int edge = upFirst[source]; edge < upFirst[source + 1]; edge++) {
+			if (upTarget[edge] == target) {
+				return upMiddle[edge];
+			}
+		}
+		throw new IllegalStateException("missing edge in hierarchy");
+	}
+
+	private int findDownMiddle(int source, int target) {
+		for (int edge = downFirst[target]; edge < downFirst[target + 1]; edge++) {
+			if (downSource[edge] == source) {
+				return downMiddle[edge];
+			}
+		}
+		throw new IllegalStateException("missing edge in hierarchy");
+	}
+
+	/**
+	 * Per-thread arrays for queries. Labels are stamped with the query they
+	 * belong to, so resetting between queries is O(1).
+	 */
+	private static class QueryState {
+		private final double[] forwardCost;
+		private final double[] backwardCost;
+		private final int[] forwardParent;
+		private final int[] backwardParent;
+		private final int[] forwardParentEdge;
+		private final int[] backwardParentEdge;
+		private final int[] forwardStamp;
+		private final int[] backwardStamp;
+		private final IntMinHeap forwardOpen;
+		private final IntMinHeap backwardOpen;
+		private int stamp = 0;
+
+		private QueryState(int n) {
+			forwardCost = new double[n];
+			backwardCost = new double[n];
+			forwardParent = new int[n];
+			backwardParent = new int[n];
+			forwardParentEdge = new int[n];
+			backwardParentEdge = new int[n];
+			forwardStamp = new int[n];
+			backwardStamp = new int[n];
+			forwardOpen = new IntMinHeap(n);
+			backwardOpen = new IntMinHeap(n);
+		}
+
+		private void reset() {
+			forwardOpen.clear();
+			backwardOpen.clear();
+			stamp++;
+			if (stamp == 0) {
+				// wrapped around, so old stamps could match again
+				Arrays.fill(forwardStamp, 0);
+				Arrays.fill(backwardStamp, 0);
+				stamp = 1;
+			}
+		}
+
+		private boolean isReached(boolean forward, int v) {
+			return (forward ? forwardStamp[v] : backwardStamp[v]) == stamp;
+		}
+
+		private void reach(boolean forward, int v, double cost, int parent, int parentEdge) {
+			if (forward) {
+				forwardStamp[v] = stamp;
+				forwardCost[v] = cost;
+				forwardParent[v] = parent;
+				forwardParentEdge[v] = parentEdge;
+				forwardOpen.put(v, cost);
+			} else {
+				backwardStamp[v] = stamp;
+				backwardCost[v] = cost;
+				backwardParent[v] = parent;
+				backwardParentEdge[v] = parentEdge;
+				backwardOpen.put(v, cost);
+			}
+		}
+	}
+
+	/**
+	 * Growable list of edges at one vertex, to or from the other vertex.
+	 */
+	private static class EdgeList {
+		private int[] vertex = new int[4];
+		private double[] weight = new double[4];
+		private int[] middle = new int[4];
+		private int size = 0;
+
+		private int indexOf(int v) {
+			for (int i = 0; i < size; i++) {
+				if (vertex[i] == v) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private void remove(int v) {
+			int i = indexOf(v);
+			if (i >= 0) {
+				size--;
+				vertex[i] = vertex[size];
+				weight[i] = weight[size];
+				middle[i] = middle[size];
+			}
+		}
+
+		/**
+		 * Adds the edge, or lowers the weight of the existing edge to the
+		 * same vertex.
+		 */
+		private void put(int v, double w, int m) {
+			int i = indexOf(v);
+			if (i < 0) {
+				if (size == vertex.length) {
+					vertex = Arrays.copyOf(vertex, size * 2);
+					weight = Arrays.copyOf(weight, size * 2);
+					middle = Arrays.copyOf(middle, size * 2);
+				}
+				i = size++;
+			} else if (weight[i] <= w) {
+				return;
+			}
+			vertex[i] = v;
+			weight[i] = w;
+			middle[i] = m;
+		}
+	}
+
+	/**
+	 * Mutable copy of the graph that vertices are contracted out of. When a
+	 * vertex is contracted its edges are removed from its neighbours' lists
+	 * but kept in its own, so the lists of contracted vertices end up holding
+	 * the finished hierarchy.
+	 */
+	private static class Contractor {
+		private final int n;
+		private final EdgeList[] out;
+		private final EdgeList[] in;
+		private final int[] contractedNeighbours;
+		private int shortcutCount = 0;
+
+		private final double[] witnessCost;
+		private final int[] witnessStamp;
+		private final IntMinHeap witnessOpen;
+		private int stamp = 0;
+
+		private Contractor(CompactGraph<?> graph) {
+			n = graph.getVertexCount();
+			out = new EdgeList[n];
+			in = new EdgeList[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new EdgeList();
+				in[v] = new EdgeList();
+			}
+			for (int u = 0; u < n; u++) {
+				for (int edge = graph.getFirstEdge(u); edge < graph.getEdgeEnd(u); edge++) {
+					int x = graph.getEdgeTarget(edge);
+					if (x != u) {
+						out[u].put(x, graph.getEdgeWeight(edge), -1);
+						in[x].put(u, graph.getEdgeWeight(edge), -1);
+					}
+				}
+			}
+			contractedNeighbours = new int[n];
+			witnessCost = new double[n];
+			witnessStamp = new int[n];
+			witnessOpen = new IntMinHeap(n);
+		}
+
+		private int[] contractAll() {
+			IntMinHeap order = new IntMinHeap(n);
+			for (int v = 0; v < n; v++) {
+				order.put(v, getPriority(v));
+			}
+			int[] rank = new int[n];
+			int nextRank = 0;
+			while (!order.isEmpty()) {
+				int v = order.poll();
+				// priorities go stale as neighbours are contracted, so check
+				// this one is still the least important before using it
+				double priority = getPriority(v);
+				if (!order.isEmpty() && priority > order.peekKey()) {
+					order.put(v, priority);
+					continue;
+				}
+				contract(v, false);
+				rank[v] = nextRank++;
+				for (int i = 0; i < out[v].size; i++) {
+					int x = out[v].vertex[i];
+					in[x].remove(v);
+					contractedNeighbours[x]++;
+				}
+				for (int i = 0; i < in[v].size; i++) {
+					int u = in[v].vertex[i];
+					out[u].remove(v);
+					contractedNeighbours[u]++;
+				}
+			}
+			return rank;
+		}
+
+		/**
+		 * Edge difference plus the number of contracted neighbours, which
+		 * spreads contraction evenly over the graph.
+		 */
+		private double getPriority(int v) {
+			return contract(v, true) - out[v].size - in[v].size + contractedNeighbours[v];
+		}
+
+		/**
+		 * Finds the shortcuts contracting v needs, adding them unless
+		 * simulating.
+		 *
+		 * @return number of shortcuts
+		 */
+		private int contract(int v, boolean simulate) {
+			int shortcuts = 0;
+			EdgeList vIn = in[v];
+			EdgeList vOut = out[v];
+			for (int i = 0; i < vIn.size; i++) {
+				int u = vIn.vertex[i];
+				double maxCost = -1.0;
+				for (int j = 0; j < vOut.size; j++) {
+					int x = vOut.vertex[j];
+					if (x != u) {
+						maxCost = Math.max(maxCost, vIn.weight[i] + vOut.weight[j]);
+					}
+				}
+				if (maxCost < 0.0) {
+					// nowhere to go through v from u
+					continue;
+				}
+				findWitnesses(u, v, maxCost);
+				for (int j = 0; j < vOut.size; j++) {
+					int x = vOut.vertex[j];
+					if (x == u) {
+						continue;
+					}
+					double viaCost = vIn.weight[i] + vOut.weight[j];
+					if (witnessStamp[x] == stamp && witnessCost[x] <= viaCost) {
+						// another path is as short, no shortcut needed
+						continue;
+					}
+					shortcuts++;
+					if (!simulate) {
+						int before = out[u].size;
+						out[u].put(x, viaCost, v);
+						in[x].put(u, viaCost, v);
+						if (out[u].size > before) {
+							shortcutCount++;
+						}
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * Dijkstra from source that avoids the vertex being contracted and
+		 * stops at maxCost or after a fixed number of settled vertices.
+		 */
+		private void findWitnesses(int source, int avoid, double maxCost) {
+			stamp++;
+			witnessOpen.clear();
+			witnessStamp[source] = stamp;
+			witnessCost[source] = 0.0;
+			witnessOpen.put(source, 0.0);
+			int settled = 0;
+			while (!witnessOpen.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+				if (witnessOpen.peekKey() > maxCost) {
+					break;
+				}
+				int current = witnessOpen.poll();
+				settled++;
+				double currentCost = witnessCost[current];
+				EdgeList edges = out[current];
+				for (int i = 0; i < edges.size; i++) {
+					int neighbour = edges.vertex[i];
+					if (neighbour == avoid) {
+						continue;
+					}
+					double cost = currentCost + edges.weight[i];
+					if (witnessStamp[neighbour] != stamp || cost < witnessCost[neighbour]) {
+						witnessStamp[neighbour] = stamp;
+						witnessCost[neighbour] = cost;
+						witnessOpen.put(neighbour, cost);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * D* Lite incremental planner.
+ *
+ * Searches backward from the goal and keeps its search state between
+ * calls. After edges of the graph change, or the start moves along the
+ * path, only the vertices whose cost to the goal is affected are processed
+ * again, rather than searching the whole graph from scratch. The heuristic
+ * must be consistent.
+ *
+ * Typical use is to call {@link #replan()}, then as the graph is edited
+ * call {@link #edgeChanged(Object, Object)} for each edge that was added,
+ * removed or reweighted, and {@link #replan()} again.
+ */
+public class DStarLite<V, E> {
+
+	private final SimpleDirectedWeightedGraph<V, E> graph;
+	private final Heuristic<V> heuristic;
+	private final V goal;
+	private V start;
+	/**
+	 * How far the start has moved, added to new keys so that old keys stay
+	 * lower bounds without re-keying the whole queue.
+	 */
+	private double keyModifier = 0.0;
+
+	/**
+	 * Cost to the goal, as of when the vertex was last processed.
+	 */
+	private final Map<V, Double> costToGoal = new HashMap<>();
+	/**
+	 * One-step lookahead cost to the goal, through the best successor.
+	 */
+	private final Map<V, Double> lookahead = new HashMap<>();
+	private final IndexedDaryHeap<V> open = new IndexedDaryHeap<>(4);
+
+	private int initialExpanded = -1;
+	private ComponentLabels<V> componentLabels = null;
+
+	public DStarLite(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic, V start, V goal) {
+		if (!graph.containsVertex(start))
+			throw new IllegalArgumentException("start must be in the graph");
+		if (!graph.containsVertex(goal))
+			throw new IllegalArgumentException("goal must be in the graph");
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.start = start;
+		this.goal = goal;
+
+		lookahead.put(goal, 0.0);
+		open.put(goal, heuristic.getCostEstimate(start, goal), 0.0);
+	}
+
+	public V getStart() {
+		return start;
+	}
+
+	public V getGoal() {
+		return goal;
+	}
+
+	/**
+	 * @return vertices expanded by the first plan, which searched from
+	 *         scratch, to compare later replans against
+	 */
+	public int getInitialExpanded() {
+		return initialExpanded;
+	}
+
+	public ComponentLabels<V> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every replan, so that a start that cannot
+	 *            reach the goal returns at once instead of searching the
+	 *            goal's whole component; the changes reported meanwhile are
+	 *            kept for the next replan. Labels of a {@link VersionedGraph}
+	 *            are ignored once it changes, others must be built again, or
+	 *            cleared with null, after the graph changes
+	 */
+	public void setComponentLabels(ComponentLabels<V> componentLabels) {
+		this.componentLabels = componentLabels;
+	}
+
+	/**
+	 * Moves the start, for example as an agent follows the path. The search
+	 * state stays valid; keys already queued are kept as lower bounds by
+	 * adding the distance moved to keyModifier.
+	 */
+	public void moveStart(V newStart) {
+		if (!graph.containsVertex(newStart))
+			throw new IllegalArgumentException("start must be in the graph");
+		keyModifier += heuristic.getCostEstimate(start, newStart);
+		start = newStart;
+	}
+
+	/**
+	 * Reports that the edge from source to target was added, removed or
+	 * had its weight changed in the graph.
+	 */
+	public void edgeChanged(V source, V target) {
+		updateVertex(source);
+	}
+
+	public List<V> findpath() {
+		return replan().getPath();
+	}
+
+	/**
+	 * Brings the search up to date with the changes reported since the last
+	 * call.
+	 *
+	 * @return the path from goal back to start, and the number of vertices
+	 *         processed to repair the search
+	 */
+	public PathResult<V> replan() {
+		long startTime = System.nanoTime();
+		if (componentLabels != null && !componentLabels.mayReach(start, goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+		}
+		int expanded = computeShortestPath();
+		if (initialExpanded < 0) {
+			initialExpanded = expanded;
+		}
+
+		double cost = getLookahead(start);
+		if (cost == Double.POSITIVE_INFINITY) {
+			// no path possible
+			return new PathResult<>(null, cost, expanded, System.nanoTime() - startTime);
+		}
+
+		// walk down the costs to the goal
+		List<V> path = new ArrayList<>();
+		V current = start;
+		path.add(current);
+		while (!goal.equals(current)) {
+			V next = null;
+			double nextCost = Double.POSITIVE_INFINITY;
+			for (E edge : graph.outgoingEdgesOf(current)) {
+				V successor = graph.getEdgeTarget(edge);
+				double successorCost = graph.getEdgeWeight(edge) + getCostToGoal(successor);
+				if (successorCost < nextCost) {
+					next = successor;
+					nextCost = successorCost;
+				}
+			}
+			if (next == null || path.size() > costToGoal.size() + 1) {
+				// a change was not reported, so the costs do not lead anywhere
+				throw new IllegalStateException("graph changed without edgeChanged being called");
+			}
+			current = next;
+			path.add(current);
+		}
+		Collections.reverse(path);
+		return new PathResult<>(path, cost, expanded, System.nanoTime() - startTime);
+	}
+
+	private int computeShortestPath() {
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			V current = open.peek();
+			double oldKey = open.getPriority(current);
+			double oldTieBreak = open.getTieBreak(current);
+			double startKey = getKey(start);
+			double startTieBreak = getTieBreak(start);
+			if (!isBefore(oldKey, oldTieBreak, startKey, startTieBreak)
+					&& getLookahead(start) == getCostToGoal(start)) {
+				break;
+			}
+			expanded++;
+
+			double newKey = getKey(current);
+			double newTieBreak = getTieBreak(current);
+			double cost = getCostToGoal(current);
+			double bestCost = getLookahead(current);
+			if (isBefore(oldKey, oldTieBreak, newKey, newTieBreak)) {
+				// queued before the start moved
+				open.put(current, newKey, newTieBreak);
+			} else if (cost > bestCost) {
+				// cost went down, pass it on to predecessors
+				costToGoal.put(current, bestCost);
+				open.remove(current);
+				for (E edge : graph.incomingEdgesOf(current)) {
+					updateVertex(graph.getEdgeSource(edge));
+				}
+			} else {
+				// cost went up, recompute it and everything that used it
+				costToGoal.remove(current);
+				for (E edge : graph.incomingEdgesOf(current)) {
+					updateVertex(graph.getEdgeSource(edge));
+				}
+				updateVertex(current);
+			}
+		}
+		return expanded;
+	}
+
+	private void updateVertex(V vertex) {
+		if (!graph.containsVertex(vertex)) {
+			// removed from the graph, so forget it
+			costToGoal.remove(vertex);
+			lookahead.remove(vertex);
+			open.remove(vertex);
+			return;
+		}
+		if (!goal.equals(vertex)) {
+			double best = Double.POSITIVE_INFINITY;
+			for (E edge : graph.outgoingEdgesOf(vertex)) {
+				best = Math.min(best, graph.getEdgeWeight(edge) + getCostToGoal(graph.getEdgeTarget(edge)));
+			}
+			if (best == Double.POSITIVE_INFINITY) {
+				lookahead.remove(vertex);
+			} else {
+				lookahead.put(vertex, best);
+			}
+		}
+		if (getCostToGoal(vertex) != getLookahead(vertex)) {
+			open.put(vertex, getKey(vertex), getTieBreak(vertex));
+		} else {
+			open.remove(vertex);
+		}
+	}
+
+	private double getKey(V vertex) {
+		return getTieBreak(vertex) + heuristic.getCostEstimate(start, vertex) + keyModifier;
+	}
+
+	private double getTieBreak(V vertex) {
+		return Math.min(getCostToGoal(vertex), getLookahead(vertex));
+	}
+
+	private double getCostToGoal(V vertex) {
+		Double cost = costToGoal.get(vertex);
+		return cost == null ? Double.POSITIVE_INFINITY : cost;
+	}
+
+	private double getLookahead(V vertex) {
+		Double cost = lookahead.get(vertex);
+		return cost == null ? Double.POSITIVE_INFINITY : cost;
+	}
+
+	private static boolean isBefore(double key1, double tieBreak1, double key2, double tieBreak2) {
+		return key1 < key2 || (key1 == key2 && tieBreak1 < tieBreak2);
+	}
+}
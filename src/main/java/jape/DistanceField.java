@@ -0,0 +1,157 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Distance from every vertex of a {@link CompactGraph} to one goal, and the
+ * next vertex to step to on a shortest path there, found by one Dijkstra
+ * search backward from the goal.
+ *
+ * Any number of agents heading for the same goal can then follow the next
+ * hops, or extract their whole path in time proportional to its length,
+ * without searching again. Vertices that cannot reach the goal, such as
+ * those on other islands, are never visited while building and answer as
+ * unreachable at once, so there is no need for {@link ComponentLabels}.
+ * Immutable, so one field can be shared between threads.
+ */
+public class DistanceField<V> {
+
+	private final CompactGraph<V> graph;
+	private final int goal;
+	private final double radius;
+	private final double[] distance;
+	private final int[] nextHop;
+
+	private DistanceField(CompactGraph<V> graph, int goal, double radius, double[] distance, int[] nextHop) {
+		this.graph = graph;
+		this.goal = goal;
+		this.radius = radius;
+		this.distance = distance;
+		this.nextHop = nextHop;
+	}
+
+	/**
+	 * @return the field of every vertex that can reach goal
+	 */
+	public static <V> DistanceField<V> build(CompactGraph<V> graph, V goal) {
+		return build(graph, goal, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * @param radius
+	 *            stop searching once every vertex within this cost of goal is
+	 *            known; vertices further away are left unreached
+	 */
+	public static <V> DistanceField<V> build(CompactGraph<V> graph, V goal, double radius) {
+		int goalIndex = graph.getIndex(goal);
+		if (goalIndex < 0)
+			throw new IllegalArgumentException("goal must be in the graph");
+		if (radius < 0.0)
+			throw new IllegalArgumentException("radius cannot be negative");
+		int n = graph.getVertexCount();
+		double[] distance = new double[n];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		int[] nextHop = new int[n];
+		Arrays.fill(nextHop, -1);
+		IntMinHeap open = new IntMinHeap(n);
+		distance[goalIndex] = 0.0;
+		open.put(goalIndex, 0.0);
+		while (!open.isEmpty()) {
+			if (open.peekKey() > radius) {
+				// what is left was only reached, not settled, so forget it
+				while (!open.isEmpty()) {
+					int outside = open.poll();
+					distance[outside] = Double.POSITIVE_INFINITY;
+					nextHop[outside] = -1;
+				}
+				break;
+			}
+			int current = open.poll();
+			double currentDistance = distance[current];
+			for (int edge = graph.getFirstIncomingEdge(current); edge < graph.getIncomingEdgeEnd(current); edge++) {
+				int neighbour = graph.getIncomingEdgeSource(edge);
+				double newDistance = currentDistance + graph.getIncomingEdgeWeight(edge);
+				if (newDistance < distance[neighbour]) {
+					distance[neighbour] = newDistance;
+					nextHop[neighbour] = current;
+					open.put(neighbour, newDistance);
+				}
+			}
+		}
+		return new DistanceField<>(graph, goalIndex, radius, distance, nextHop);
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	public V getGoal() {
+		return graph.getVertex(goal);
+	}
+
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return cost from vertex to the goal, or positive infinity if it cannot
+	 *         reach the goal within the radius
+	 */
+	public double getDistance(V vertex) {
+		int index = graph.getIndex(vertex);
+		return index < 0 ? Double.POSITIVE_INFINITY : distance[index];
+	}
+
+	/**
+	 * As {@link #getDistance(Object)}, using vertex numbers of the graph.
+	 */
+	public double getDistance(int vertex) {
+		return distance[vertex];
+	}
+
+	public boolean isReached(V vertex) {
+		return getDistance(vertex) != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the vertex to step to from vertex on a shortest path to the
+	 *         goal, or null at the goal or where the goal is not reached
+	 */
+	public V getNextHop(V vertex) {
+		int index = graph.getIndex(vertex);
+		if (index < 0 || nextHop[index] < 0) {
+			return null;
+		}
+		return graph.getVertex(nextHop[index]);
+	}
+
+	/**
+	 * As {@link #getNextHop(Object)}, using vertex numbers of the graph; -1
+	 * stands for none.
+	 */
+	public int getNextHop(int vertex) {
+		return nextHop[vertex];
+	}
+
+	/**
+	 * @return the path from goal back to start, or null if start does not
+	 *         reach the goal within the radius
+	 */
+	public List<V> findpath(V start) {
+		int current = graph.getIndex(start);
+		if (current < 0 || distance[current] == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		List<V> path = new ArrayList<>();
+		path.add(start);
+		while (current != goal) {
+			current = nextHop[current];
+			path.add(graph.getVertex(current));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
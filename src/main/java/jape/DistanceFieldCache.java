@@ -0,0 +1,69 @@
+package jape;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded least-recently-used cache of {@link DistanceField}s by goal, so
+ * agents heading to a popular goal share one field. Each field costs a
+ * double and an int per vertex of the graph.
+ */
+public class DistanceFieldCache<V> {
+
+	private final CompactGraph<V> graph;
+	private final double radius;
+	private final Cache<V, DistanceField<V>> cache;
+
+	public DistanceFieldCache(CompactGraph<V> graph, long maximumSize) {
+		this(graph, maximumSize, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * @param radius
+	 *            radius every field is built with
+	 */
+	public DistanceFieldCache(CompactGraph<V> graph, long maximumSize, double radius) {
+		this.graph = graph;
+		this.radius = radius;
+		this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	/**
+	 * @return the field for the goal, building it if needed
+	 */
+	public DistanceField<V> get(final V goal) {
+		try {
+			return cache.get(goal, new Callable<DistanceField<V>>() {
+				@Override
+				public DistanceField<V> call() {
+					return DistanceField.build(graph, goal, radius);
+				}
+			});
+		} catch (UncheckedExecutionException | ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("failed to build distance field", e.getCause());
+		}
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return hit, miss and eviction counts since the cache was created
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,20 @@
+package jape;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.IslandMap;
+
+/**
+ * Cost of stepping from one site of a map to a linked site. Called from
+ * several threads at once by {@link RoutingGraphCompiler}.
+ */
+public interface EdgeCostFunction {
+
+	/**
+	 * Distance scaled by 1 + the change in height, so climbing costs more.
+	 */
+	public static final EdgeCostFunction HEIGHT_SCALED_DISTANCE = (map, source, target) -> source.distance(target)
+			* (1.0 + Math.abs(map.getHeightOfSite(source) - map.getHeightOfSite(target)));
+
+	public double getCost(IslandMap map, Coordinate source, Coordinate target);
+}
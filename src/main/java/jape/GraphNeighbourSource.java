@@ -0,0 +1,55 @@
+package jape;
+
+import java.util.Iterator;
+
+import org.jgrapht.DirectedGraph;
+
+/**
+ * Successors of any JGraphT directed graph, from its outgoing edges.
+ */
+public class GraphNeighbourSource<V, E> implements NeighbourSource<V> {
+
+	private final DirectedGraph<V, E> graph;
+
+	public GraphNeighbourSource(DirectedGraph<V, E> graph) {
+		this.graph = graph;
+	}
+
+	public DirectedGraph<V, E> getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SuccessorIterator<V> newSuccessorIterator() {
+		return new SuccessorIterator<V>() {
+			private Iterator<E> edges;
+			private E edge;
+
+			@Override
+			public void start(V vertex) {
+				edges = graph.outgoingEdgesOf(vertex).iterator();
+				edge = null;
+			}
+
+			@Override
+			public boolean next() {
+				if (!edges.hasNext()) {
+					edge = null;
+					return false;
+				}
+				edge = edges.next();
+				return true;
+			}
+
+			@Override
+			public V getSuccessor() {
+				return graph.getEdgeTarget(edge);
+			}
+
+			@Override
+			public double getWeight() {
+				return graph.getEdgeWeight(edge);
+			}
+		};
+	}
+}
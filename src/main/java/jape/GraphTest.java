@@ -38,7 +38,7 @@ public class GraphTest {
 
 	private IslandMap worldMap;
 	private SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph;
-	private AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder;
+	private MovingTargetPlanner<Coordinate> planner;
 
 	private Integer mouseX = null;
 	private Integer mouseY = null;
@@ -110,36 +110,17 @@ public class GraphTest {
 		worldMap = builder.buildData(points, bounds);
 
 		// create a JGraphT graph
-		graph = new SimpleDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+		graph = new VersionedGraph<>(DefaultWeightedEdge.class);
 
 		// build the graph from the map
-		for (Polygon poly : worldMap.getRegions()) {
-			Coordinate site = worldMap.getSiteOfRegion(poly);
-			if (!worldMap.getIsSiteUnderwater(site)) {
-				graph.addVertex(site);
-			}
-		}
-		for (Polygon poly : worldMap.getRegions()) {
-			Coordinate site = worldMap.getSiteOfRegion(poly);
-			if (!worldMap.getIsSiteUnderwater(site)) {
-				for (Coordinate linkedSite : worldMap.getLinkedSites(site)) {
-					if (!worldMap.getIsSiteUnderwater(linkedSite)) {
-						graph.addEdge(site, linkedSite);
-						double weight = site.distance(linkedSite);
-						// scale weight by 1+altitude change^2
-						double heightSite = worldMap.getHeightOfSite(site);
-						double heightLinkedSite = worldMap.getHeightOfSite(linkedSite);
-						double weightScale = Math.abs(heightSite - heightLinkedSite);
-						// log.info("weight scale = "+weightScale);
-						weight *= 1.0 + weightScale;
-						graph.setEdgeWeight(graph.getEdge(site, linkedSite), weight);
-					}
-				}
-			}
-		}
+		new RoutingGraphCompiler(worldMap).compileGraph(graph);
 		// TODO use midpoints of shared edges
 
-		aStarBuilder = new AStarBuilder<>(graph, new EuclidianHeuristic());
+		// the start stays put while the mouse moves the goal every frame, so
+		// keep the search tree from the start between frames
+		planner = new MovingTargetPlanner<>(graph, new EuclidianHeuristic());
+		// paths to other islands are refused without searching
+		planner.setComponentLabels(ComponentLabels.build(graph));
 
 		// Show in Frame
 		GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
@@ -170,17 +151,8 @@ public class GraphTest {
 	}
 
 	private Coordinate getCoordinateClosest(int x, int y) {
-		Coordinate target = new Coordinate(x, y);
-		Coordinate closest = null;
-		double dist = 0.0;
-		for (Coordinate coord : graph.vertexSet()) {
-			double coordDist = target.distance(coord);
-			if (closest == null || coordDist < dist) {
-				closest = coord;
-				dist = coordDist;
-			}
-		}
-		return closest;
+		// graph vertices are the land sites
+		return worldMap.getSiteIndex().getNearest(new Coordinate(x, y), true);
 	}
 
 	private Color getHeightColor(double height) {
@@ -226,7 +198,7 @@ public class GraphTest {
 			Coordinate closest = getCoordinateClosest(mouseX, mouseY);
 			if (start != null) {
 				// calculate shortest path
-				List<Coordinate> path = aStarBuilder.findpath(start, closest);
+				List<Coordinate> path = planner.findpath(start, closest);
 				if (path != null) {
 					// draw it
 					for (int i = 1; i < path.size(); i++) {
@@ -0,0 +1,365 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+
+import jape.map.BasicMap;
+
+/**
+ * Hierarchical path-finding A* (HPA*) over the sites of a map.
+ *
+ * The map is cut into square clusters. Sites with an edge to or from
+ * another cluster are the entrances of their cluster, and the cost between
+ * every pair of entrances of a cluster, staying inside it, is precomputed.
+ * A query first searches the abstract graph of entrances, which is much
+ * smaller than the site graph, then finds the site-level path only inside
+ * the clusters the abstract path crosses.
+ *
+ * As every site on a cluster border is an entrance, the paths found are as
+ * short as those of a flat search. When the graph is changed around a site,
+ * {@link #siteChanged(Coordinate)} recomputes just the clusters involved.
+ */
+public class HierarchicalPathfinder<E> {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final SimpleDirectedWeightedGraph<Coordinate, E> graph;
+	private final Heuristic<Coordinate> heuristic;
+	private final Envelope bounds;
+	private final double clusterSize;
+	private final int columns;
+	private final Cluster[] clusters;
+	private volatile ComponentLabels<Coordinate> componentLabels = null;
+
+	/**
+	 * @param graph
+	 *            graph between the sites of the map; sites that are not in it,
+	 *            such as those underwater, are ignored
+	 * @param clusterSize
+	 *            width and height of each cluster
+	 */
+	public HierarchicalPathfinder(BasicMap map, SimpleDirectedWeightedGraph<Coordinate, E> graph,
+			Heuristic<Coordinate> heuristic, double clusterSize) {
+		if (!(clusterSize > 0.0))
+			throw new IllegalArgumentException("clusterSize must be positive");
+		long startTime = System.nanoTime();
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.bounds = map.getBoundary().getEnvelopeInternal();
+		this.clusterSize = clusterSize;
+		this.columns = Math.max(1, (int) Math.ceil(bounds.getWidth() / clusterSize));
+		int rows = Math.max(1, (int) Math.ceil(bounds.getHeight() / clusterSize));
+		clusters = new Cluster[columns * rows];
+		for (int i = 0; i < clusters.length; i++) {
+			clusters[i] = new Cluster();
+		}
+		for (Coordinate site : map.getSites()) {
+			clusters[getClusterOf(site)].sites.add(site);
+		}
+		int entrances = 0;
+		for (int i = 0; i < clusters.length; i++) {
+			recompute(i);
+			entrances += clusters[i].entrances.size();
+		}
+		log.info("Built " + clusters.length + " clusters with " + entrances + " entrances in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+	}
+
+	public int getClusterCount() {
+		return clusters.length;
+	}
+
+	/**
+	 * @return the number of the cluster the coordinate falls in
+	 */
+	public int getClusterOf(Coordinate coordinate) {
+		int column = (int) ((coordinate.x - bounds.getMinX()) / clusterSize);
+		int row = (int) ((coordinate.y - bounds.getMinY()) / clusterSize);
+		column = Math.max(0, Math.min(columns - 1, column));
+		row = Math.max(0, Math.min(clusters.length / columns - 1, row));
+		return row * columns + column;
+	}
+
+	/**
+	 * Call after the edges of a site, or whether it is in the graph at all,
+	 * have changed; for example when its height changes or it floods.
+	 * Recomputes the cluster of the site and the clusters it links to.
+	 */
+	public void siteChanged(Coordinate site) {
+		int cluster = getClusterOf(site);
+		Set<Integer> affected = new HashSet<>();
+		affected.add(cluster);
+		if (graph.containsVertex(site)) {
+			for (E edge : graph.outgoingEdgesOf(site)) {
+				affected.add(getClusterOf(graph.getEdgeTarget(edge)));
+			}
+			for (E edge : graph.incomingEdgesOf(site)) {
+				affected.add(getClusterOf(graph.getEdgeSource(edge)));
+			}
+		}
+		for (int other : affected) {
+			recompute(other);
+		}
+	}
+
+	/**
+	 * Finds the entrances of the cluster and the costs between them.
+	 */
+	private void recompute(int clusterIndex) {
+		Cluster cluster = clusters[clusterIndex];
+		cluster.entrances.clear();
+		for (Coordinate site : cluster.sites) {
+			if (graph.containsVertex(site) && isEntrance(site, clusterIndex)) {
+				cluster.entrances.add(site);
+			}
+		}
+		cluster.costs.clear();
+		cluster.trees.clear();
+		for (Coordinate entrance : cluster.entrances) {
+			Map<Coordinate, Coordinate> tree = new HashMap<>();
+			Map<Coordinate, Double> distances = getDistancesInCluster(entrance, clusterIndex, false, tree);
+			Map<Coordinate, Double> costs = new HashMap<>();
+			for (Coordinate other : cluster.entrances) {
+				Double cost = distances.get(other);
+				if (cost != null && !other.equals(entrance)) {
+					costs.put(other, cost);
+				}
+			}
+			cluster.costs.put(entrance, costs);
+			cluster.trees.put(entrance, tree);
+		}
+	}
+
+	private boolean isEntrance(Coordinate site, int cluster) {
+		for (E edge : graph.outgoingEdgesOf(site)) {
+			if (getClusterOf(graph.getEdgeTarget(edge)) != cluster) {
+				return true;
+			}
+		}
+		for (E edge : graph.incomingEdgesOf(site)) {
+			if (getClusterOf(graph.getEdgeSource(edge)) != cluster) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public ComponentLabels<Coordinate> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every search, so that a goal the start
+	 *            cannot reach returns at once; labels of a
+	 *            {@link VersionedGraph} are ignored once it changes, others
+	 *            must be built again, or cleared with null, whenever the
+	 *            graph changes and {@link #siteChanged(Coordinate)} is called
+	 */
+	public void setComponentLabels(ComponentLabels<Coordinate> componentLabels) {
+		this.componentLabels = componentLabels;
+	}
+
+	public List<Coordinate> findpath(Coordinate start, Coordinate goal) {
+		return search(start, goal).getPath();
+	}
+
+	/**
+	 * @return the path from goal back to start; the expanded count includes
+	 *         the searches connecting start and goal to their clusters
+	 */
+	public PathResult<Coordinate> search(Coordinate start, Coordinate goal) {
+		if (!graph.containsVertex(start))
+			throw new IllegalArgumentException("start must be in the graph");
+		if (!graph.containsVertex(goal))
+			throw new IllegalArgumentException("goal must be in the graph");
+		long startTime = System.nanoTime();
+		ComponentLabels<Coordinate> labels = componentLabels;
+		if (labels != null && !labels.mayReach(start, goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+		}
+		int startCluster = getClusterOf(start);
+		int goalCluster = getClusterOf(goal);
+
+		// connect start and goal to the entrances of their clusters
+		Map<Coordinate, Coordinate> startTree = new HashMap<>();
+		Map<Coordinate, Double> fromStart = getDistancesInCluster(start, startCluster, false, startTree);
+		Map<Coordinate, Coordinate> goalTree = new HashMap<>();
+		Map<Coordinate, Double> toGoal = getDistancesInCluster(goal, goalCluster, true, goalTree);
+		int expanded = fromStart.size() + toGoal.size();
+
+		// search the abstract graph
+		AbstractSearch search = new AbstractSearch(start, goal);
+		while (!goal.equals(search.open.peek())) {
+			Coordinate current = search.open.poll();
+			if (current == null) {
+				// no path possible
+				return new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime);
+			}
+			search.closed.add(current);
+			expanded++;
+
+			if (current.equals(start)) {
+				for (Coordinate entrance : clusters[startCluster].entrances) {
+					search.relax(current, entrance, fromStart.get(entrance));
+				}
+				if (startCluster == goalCluster) {
+					search.relax(current, goal, fromStart.get(goal));
+				}
+			}
+			int currentCluster = getClusterOf(current);
+			Map<Coordinate, Double> intraCosts = clusters[currentCluster].costs.get(current);
+			if (intraCosts != null) {
+				for (Map.Entry<Coordinate, Double> entry : intraCosts.entrySet()) {
+					search.relax(current, entry.getKey(), entry.getValue());
+				}
+				for (E edge : graph.outgoingEdgesOf(current)) {
+					Coordinate target = graph.getEdgeTarget(edge);
+					if (getClusterOf(target) != currentCluster) {
+						search.relax(current, target, graph.getEdgeWeight(edge));
+					}
+				}
+			}
+			if (currentCluster == goalCluster) {
+				search.relax(current, goal, toGoal.get(current));
+			}
+		}
+		Map<Coordinate, Coordinate> cameFrom = search.cameFrom;
+
+		List<Coordinate> abstractPath = new ArrayList<>();
+		Coordinate current = goal;
+		while (!start.equals(current)) {
+			abstractPath.add(current);
+			current = cameFrom.get(current);
+		}
+		abstractPath.add(start);
+		Collections.reverse(abstractPath);
+
+		// refine each step inside a cluster into sites, goal first, by
+		// following the shortest path trees of the cluster
+		List<Coordinate> path = new ArrayList<>();
+		path.add(goal);
+		for (int i = abstractPath.size() - 1; i > 0; i--) {
+			Coordinate to = abstractPath.get(i);
+			Coordinate from = abstractPath.get(i - 1);
+			if (getClusterOf(from) != getClusterOf(to)) {
+				path.add(from);
+			} else if (!from.equals(start) && to.equals(goal)) {
+				// the goal tree points towards the goal, so walk it forwards
+				List<Coordinate> segment = new ArrayList<>();
+				for (Coordinate site = from; !site.equals(goal); site = goalTree.get(site)) {
+					segment.add(site);
+				}
+				Collections.reverse(segment);
+				path.addAll(segment);
+			} else {
+				Map<Coordinate, Coordinate> tree = from.equals(start) ? startTree
+						: clusters[getClusterOf(from)].trees.get(from);
+				Coordinate site = to;
+				do {
+					site = tree.get(site);
+					path.add(site);
+				} while (!site.equals(from));
+			}
+		}
+		return new PathResult<>(path, search.costSoFar.get(goal), expanded, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Dijkstra without leaving the cluster.
+	 *
+	 * @param reverse
+	 *            if true, finds the distances to the source instead
+	 * @param tree
+	 *            filled with the site each site was reached from
+	 * @return distance of every site of the cluster that can be reached
+	 */
+	private Map<Coordinate, Double> getDistancesInCluster(Coordinate source, int cluster, boolean reverse,
+			Map<Coordinate, Coordinate> tree) {
+		final Map<Coordinate, Double> distances = new HashMap<>();
+		OpenList<Coordinate> open = new IndexedDaryHeap<>(2);
+		open.put(source, 0.0);
+		while (!open.isEmpty()) {
+			double currentCost = open.getPriority(open.peek());
+			Coordinate current = open.poll();
+			distances.put(current, currentCost);
+			for (E edge : reverse ? graph.incomingEdgesOf(current) : graph.outgoingEdgesOf(current)) {
+				Coordinate neighbour = reverse ? graph.getEdgeSource(edge) : graph.getEdgeTarget(edge);
+				if (distances.containsKey(neighbour) || getClusterOf(neighbour) != cluster) {
+					continue;
+				}
+				double cost = currentCost + graph.getEdgeWeight(edge);
+				if (!open.contains(neighbour) || cost < open.getPriority(neighbour)) {
+					open.put(neighbour, cost);
+					tree.put(neighbour, current);
+				}
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * A* over entrances, with start and goal added.
+	 */
+	private class AbstractSearch {
+		private final Coordinate goal;
+		private final Map<Coordinate, Double> costSoFar = new HashMap<>();
+		private final Map<Coordinate, Coordinate> cameFrom = new HashMap<>();
+		private final Set<Coordinate> closed = new HashSet<>();
+		private final OpenList<Coordinate> open = new IndexedDaryHeap<>(2);
+
+		AbstractSearch(Coordinate start, Coordinate goal) {
+			this.goal = goal;
+			costSoFar.put(start, 0.0);
+			open.put(start, heuristic.getCostEstimate(start, goal));
+		}
+
+		/**
+		 * Queues the neighbour if going there from current is better.
+		 *
+		 * @param edgeCost
+		 *            null if the neighbour cannot be reached
+		 */
+		void relax(Coordinate current, Coordinate neighbour, Double edgeCost) {
+			if (edgeCost == null || closed.contains(neighbour)) {
+				return;
+			}
+			double cost = costSoFar.get(current) + edgeCost;
+			Double knownCost = costSoFar.get(neighbour);
+			if (knownCost == null || cost < knownCost) {
+				costSoFar.put(neighbour, cost);
+				cameFrom.put(neighbour, current);
+				open.put(neighbour, cost + heuristic.getCostEstimate(neighbour, goal));
+			}
+		}
+	}
+
+	private static class Cluster {
+		/**
+		 * Every site of the map in the cluster, in the graph or not.
+		 */
+		private final List<Coordinate> sites = new ArrayList<>();
+		private final List<Coordinate> entrances = new ArrayList<>();
+		/**
+		 * Cost from each entrance to each other entrance it can reach.
+		 */
+		private final Map<Coordinate, Map<Coordinate, Double>> costs = new HashMap<>();
+		/**
+		 * For each entrance, the site each site of the cluster is reached
+		 * from on the shortest path from the entrance.
+		 */
+		private final Map<Coordinate, Map<Coordinate, Coordinate>> trees = new HashMap<>();
+	}
+}
@@ -0,0 +1,225 @@
+package jape;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Min-heap where each node has up to arity children. The position of every
+ * queued vertex is tracked, so membership tests are O(1) and changing a
+ * priority is O(log n) rather than the O(n) remove and re-add a
+ * {@link java.util.PriorityQueue} needs.
+ *
+ * Vertices with equal priority can be ordered by a second, tie-break, key.
+ *
+ * This is the open list for searches over arbitrary vertex objects, such as
+ * those run directly on a JGraphT graph, where vertices have no dense
+ * numbering. {@link IntMinHeap} does the same job without any hashing for
+ * searches whose vertices are already numbered 0..n-1, such as those over a
+ * {@link CompactGraph}.
+ */
+public class IndexedDaryHeap<V> implements OpenList<V> {
+
+	/**
+	 * A queued vertex. It records its own position in heap, so sifting only
+	 * writes array slots and fields; the map is touched once per operation.
+	 */
+	private static final class Entry<V> {
+		final V vertex;
+		double priority;
+		double tieBreak;
+		int position;
+
+		Entry(V vertex) {
+			this.vertex = vertex;
+		}
+	}
+
+	private final int arity;
+	private final Map<V, Entry<V>> entries = new HashMap<>();
+	private Entry<V>[] heap = newArray(16);
+	private int size = 0;
+
+	public IndexedDaryHeap(int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity must be at least 2");
+		this.arity = arity;
+	}
+
+	public int getArity() {
+		return arity;
+	}
+
+	@Override
+	public void put(V vertex, double newPriority) {
+		put(vertex, newPriority, 0.0);
+	}
+
+	/**
+	 * Adds the vertex, or changes its priority if it is already queued.
+	 * Among vertices of equal priority, the lowest tie-break comes first.
+	 */
+	public void put(V vertex, double newPriority, double newTieBreak) {
+		Entry<V> entry = entries.get(vertex);
+		if (entry == null) {
+			entry = new Entry<>(vertex);
+			entries.put(vertex, entry);
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			entry.priority = newPriority;
+			entry.tieBreak = newTieBreak;
+			size++;
+			siftUp(size - 1, entry);
+		} else if (isBefore(newPriority, newTieBreak, entry.priority, entry.tieBreak)) {
+			entry.priority = newPriority;
+			entry.tieBreak = newTieBreak;
+			siftUp(entry.position, entry);
+		} else {
+			entry.priority = newPriority;
+			entry.tieBreak = newTieBreak;
+			siftDown(entry.position, entry);
+		}
+	}
+
+	@Override
+	public boolean contains(V vertex) {
+		return entries.containsKey(vertex);
+	}
+
+	@Override
+	public double getPriority(V vertex) {
+		return getEntry(vertex).priority;
+	}
+
+	public double getTieBreak(V vertex) {
+		return getEntry(vertex).tieBreak;
+	}
+
+	@Override
+	public V peek() {
+		if (size == 0) {
+			return null;
+		}
+		return heap[0].vertex;
+	}
+
+	@Override
+	public V poll() {
+		if (size == 0) {
+			return null;
+		}
+		Entry<V> top = heap[0];
+		entries.remove(top.vertex);
+		removeAt(0);
+		return top.vertex;
+	}
+
+	@Override
+	public void remove(V vertex) {
+		Entry<V> entry = entries.remove(vertex);
+		if (entry != null) {
+			removeAt(entry.position);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		entries.clear();
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> Entry<V>[] newArray(int length) {
+		return (Entry<V>[]) new Entry<?>[length];
+	}
+
+	private Entry<V> getEntry(V vertex) {
+		Entry<V> entry = entries.get(vertex);
+		if (entry == null)
+			throw new IllegalArgumentException("vertex is not queued");
+		return entry;
+	}
+
+	/**
+	 * Fills the slot at pos, whose entry has already left the map, with the
+	 * last entry.
+	 */
+	private void removeAt(int pos) {
+		Entry<V> removed = heap[pos];
+		size--;
+		Entry<V> last = heap[size];
+		heap[size] = null;
+		if (pos < size) {
+			if (isBefore(last.priority, last.tieBreak, removed.priority, removed.tieBreak)) {
+				siftUp(pos, last);
+			} else {
+				siftDown(pos, last);
+			}
+		}
+	}
+
+	private static boolean isBefore(double priority1, double tieBreak1, double priority2, double tieBreak2) {
+		return priority1 < priority2 || (priority1 == priority2 && tieBreak1 < tieBreak2);
+	}
+
+	/**
+	 * Moves the hole at pos towards the root until entry fits in it.
+	 */
+	private void siftUp(int pos, Entry<V> entry) {
+		while (pos > 0) {
+			int parentPos = (pos - 1) / arity;
+			Entry<V> parent = heap[parentPos];
+			if (!isBefore(entry.priority, entry.tieBreak, parent.priority, parent.tieBreak)) {
+				break;
+			}
+			place(pos, parent);
+			pos = parentPos;
+		}
+		place(pos, entry);
+	}
+
+	/**
+	 * Moves the hole at pos towards the leaves until entry fits in it.
+	 */
+	private void siftDown(int pos, Entry<V> entry) {
+		while (true) {
+			int firstChild = pos * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			Entry<V> best = heap[firstChild];
+			int bestPos = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				Entry<V> candidate = heap[child];
+				if (isBefore(candidate.priority, candidate.tieBreak, best.priority, best.tieBreak)) {
+					best = candidate;
+					bestPos = child;
+				}
+			}
+			if (!isBefore(best.priority, best.tieBreak, entry.priority, entry.tieBreak)) {
+				break;
+			}
+			place(pos, best);
+			pos = bestPos;
+		}
+		place(pos, entry);
+	}
+
+	private void place(int pos, Entry<V> entry) {
+		heap[pos] = entry;
+		entry.position = pos;
+	}
+}
@@ -0,0 +1,206 @@
+package jape;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Min-heap of vertex numbers 0..capacity-1 keyed on a double, binary unless
+ * another arity is given. The position of every vertex in the heap is
+ * tracked, so membership tests are O(1) and changing the key of a queued
+ * vertex is O(log n).
+ *
+ * Searches over vertex objects with no dense numbering use
+ * {@link IndexedDaryHeap} instead, which pays one hash lookup per operation.
+ */
+public class IntMinHeap {
+
+	private final int arity;
+	private int[] heap;
+	private double[] key;
+	/**
+	 * Position of each vertex in heap, or -1 if not queued.
+	 */
+	private int[] position;
+	private int size = 0;
+
+	public IntMinHeap(int capacity) {
+		this(capacity, 2);
+	}
+
+	public IntMinHeap(int capacity, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity must be at least 2");
+		this.arity = arity;
+		heap = new int[capacity];
+		key = new double[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public int getCapacity() {
+		return heap.length;
+	}
+
+	/**
+	 * Grows the heap so that it can hold vertex numbers up to capacity-1.
+	 */
+	public void ensureCapacity(int capacity) {
+		int oldCapacity = heap.length;
+		if (capacity <= oldCapacity) {
+			return;
+		}
+		heap = Arrays.copyOf(heap, capacity);
+		key = Arrays.copyOf(key, capacity);
+		position = Arrays.copyOf(position, capacity);
+		Arrays.fill(position, oldCapacity, capacity, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int vertex) {
+		return position[vertex] >= 0;
+	}
+
+	public double getKey(int vertex) {
+		return key[vertex];
+	}
+
+	/**
+	 * Adds the vertex, or changes its key if it is already queued.
+	 */
+	public void put(int vertex, double newKey) {
+		int pos = position[vertex];
+		if (pos < 0) {
+			key[vertex] = newKey;
+			heap[size] = vertex;
+			position[vertex] = size;
+			size++;
+			siftUp(size - 1);
+		} else {
+			double oldKey = key[vertex];
+			key[vertex] = newKey;
+			if (newKey < oldKey) {
+				siftUp(pos);
+			} else {
+				siftDown(pos);
+			}
+		}
+	}
+
+	public int peek() {
+		if (size == 0)
+			throw new NoSuchElementException("heap is empty");
+		return heap[0];
+	}
+
+	public double peekKey() {
+		return key[peek()];
+	}
+
+	public int poll() {
+		int top = peek();
+		removeAt(0);
+		return top;
+	}
+
+	public void remove(int vertex) {
+		int pos = position[vertex];
+		if (pos >= 0) {
+			removeAt(pos);
+		}
+	}
+
+	/**
+	 * Empties the heap. Cost is proportional to the number of queued
+	 * vertices, not the capacity.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Replaces the key of every queued vertex and restores the heap order
+	 * in one pass, in O(n) rather than O(n log n) for a put each.
+	 */
+	public void rekeyAll(IntToDoubleFunction newKey) {
+		for (int i = 0; i < size; i++) {
+			key[heap[i]] = newKey.applyAsDouble(heap[i]);
+		}
+		if (size > 1) {
+			for (int pos = (size - 2) / arity; pos >= 0; pos--) {
+				siftDown(pos);
+			}
+		}
+	}
+
+	private void removeAt(int pos) {
+		int vertex = heap[pos];
+		position[vertex] = -1;
+		size--;
+		if (pos < size) {
+			int last = heap[size];
+			heap[pos] = last;
+			position[last] = pos;
+			if (key[last] < key[vertex]) {
+				siftUp(pos);
+			} else {
+				siftDown(pos);
+			}
+		}
+	}
+
+	private void siftUp(int pos) {
+		int vertex = heap[pos];
+		double vertexKey = key[vertex];
+		while (pos > 0) {
+			int parentPos = (pos - 1) / arity;
+			int parent = heap[parentPos];
+			if (key[parent] <= vertexKey) {
+				break;
+			}
+			heap[pos] = parent;
+			position[parent] = pos;
+			pos = parentPos;
+		}
+		heap[pos] = vertex;
+		position[vertex] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int vertex = heap[pos];
+		double vertexKey = key[vertex];
+		while (true) {
+			int firstChildPos = pos * arity + 1;
+			if (firstChildPos >= size) {
+				break;
+			}
+			int childPos = firstChildPos;
+			int child = heap[childPos];
+			int lastChildPos = Math.min(firstChildPos + arity, size);
+			for (int otherPos = firstChildPos + 1; otherPos < lastChildPos; otherPos++) {
+				if (key[heap[otherPos]] < key[child]) {
+					childPos = otherPos;
+					child = heap[childPos];
+				}
+			}
+			if (vertexKey <= key[child]) {
+				break;
+			}
+			heap[pos] = child;
+			position[child] = pos;
+			pos = childPos;
+		}
+		heap[pos] = vertex;
+		position[vertex] = pos;
+	}
+}
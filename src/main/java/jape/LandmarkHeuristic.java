@@ -0,0 +1,256 @@
+package jape;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ALT (A*, landmarks, triangle inequality) heuristic.
+ *
+ * The exact distance from and to a few landmark vertices is precomputed for
+ * every vertex. By the triangle inequality, d(s, t) is at least d(L, t) -
+ * d(L, s) and at least d(s, L) - d(t, L) for every landmark L; the estimate
+ * is the largest of these. Unlike the straight line distance, these bounds
+ * include the cost of climbing, so far fewer vertices are expanded on hilly
+ * maps.
+ */
+public class LandmarkHeuristic<V> implements Heuristic<V> {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final CompactGraph<V> graph;
+	private final int[] landmarks;
+	/**
+	 * Distance from each landmark to each vertex, vertex-major so that the
+	 * distances for one vertex are adjacent: [vertex * landmarks + landmark].
+	 * Wraps an array, or is a view of the file the tables were read from.
+	 */
+	private final DoubleBuffer fromLandmark;
+	/**
+	 * Distance from each vertex to each landmark, laid out as fromLandmark.
+	 */
+	private final DoubleBuffer toLandmark;
+	private final long precomputationNanos;
+
+	public LandmarkHeuristic(CompactGraph<V> graph, int landmarkCount) {
+		this(graph, landmarkCount, LandmarkSelection.FARTHEST, ForkJoinPool.commonPool(), Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param executor
+	 *            runs the distance calculations, several at once where the
+	 *            selection allows it
+	 * @param timeBudgetNanos
+	 *            with {@link LandmarkSelection#FARTHEST}, stop adding
+	 *            landmarks once this much time has passed; at least one
+	 *            landmark is always added
+	 */
+	public LandmarkHeuristic(CompactGraph<V> graph, int landmarkCount, LandmarkSelection selection,
+			ExecutorService executor, long timeBudgetNanos) {
+		if (landmarkCount < 1)
+			throw new IllegalArgumentException("landmarkCount must be at least 1");
+		if (graph.getVertexCount() == 0)
+			throw new IllegalArgumentException("graph must have at least one vertex");
+		long startTime = System.nanoTime();
+		this.graph = graph;
+
+		int n = graph.getVertexCount();
+		landmarkCount = Math.min(landmarkCount, n);
+		List<Integer> chosen = new ArrayList<>();
+		List<double[]> fromTables = new ArrayList<>();
+		List<double[]> toTables = new ArrayList<>();
+
+		if (selection == LandmarkSelection.RANDOM) {
+			List<Integer> candidates = new ArrayList<>();
+			for (int v = 0; v < n; v++) {
+				candidates.add(v);
+			}
+			Collections.shuffle(candidates, new Random(42));
+			chosen.addAll(candidates.subList(0, landmarkCount));
+			List<Callable<double[]>> tasks = new ArrayList<>();
+			for (int landmark : chosen) {
+				tasks.add(() -> CompactDijkstra.distancesFrom(graph, landmark));
+				tasks.add(() -> CompactDijkstra.distancesTo(graph, landmark));
+			}
+			List<double[]> tables = runAll(executor, tasks);
+			for (int i = 0; i < chosen.size(); i++) {
+				fromTables.add(tables.get(2 * i));
+				toTables.add(tables.get(2 * i + 1));
+			}
+		} else {
+			// start from the vertex furthest from an arbitrary one
+			double[] nearestLandmark = CompactDijkstra.distancesFrom(graph, 0);
+			while (chosen.size() < landmarkCount) {
+				int landmark = -1;
+				int unreached = -1;
+				int unreachedCount = 0;
+				for (int v = 0; v < n; v++) {
+					if (nearestLandmark[v] == Double.POSITIVE_INFINITY) {
+						if (unreached < 0) {
+							unreached = v;
+						}
+						unreachedCount++;
+					} else if (nearestLandmark[v] > 0.0
+							&& (landmark < 0 || nearestLandmark[v] > nearestLandmark[landmark])) {
+						landmark = v;
+					}
+				}
+				// vertices on islands no landmark reaches only get a landmark
+				// of their own if they are at least a landmark's share of the
+				// graph, otherwise small islets would use them all up
+				if (unreached >= 0 && (landmark < 0 || (long) unreachedCount * landmarkCount >= n)) {
+					landmark = unreached;
+				}
+				if (landmark < 0) {
+					// every vertex is a landmark
+					break;
+				}
+				final int next = landmark;
+				List<Callable<double[]>> tasks = new ArrayList<>();
+				tasks.add(() -> CompactDijkstra.distancesFrom(graph, next));
+				tasks.add(() -> CompactDijkstra.distancesTo(graph, next));
+				List<double[]> tables = runAll(executor, tasks);
+				chosen.add(landmark);
+				fromTables.add(tables.get(0));
+				toTables.add(tables.get(1));
+
+				if (chosen.size() == 1) {
+					nearestLandmark = tables.get(0).clone();
+				} else {
+					for (int v = 0; v < n; v++) {
+						nearestLandmark[v] = Math.min(nearestLandmark[v], tables.get(0)[v]);
+					}
+				}
+				if (System.nanoTime() - startTime > timeBudgetNanos) {
+					break;
+				}
+			}
+		}
+
+		int k = chosen.size();
+		landmarks = new int[k];
+		double[] fromTable = new double[n * k];
+		double[] toTable = new double[n * k];
+		for (int l = 0; l < k; l++) {
+			landmarks[l] = chosen.get(l);
+			double[] from = fromTables.get(l);
+			double[] to = toTables.get(l);
+			for (int v = 0; v < n; v++) {
+				fromTable[v * k + l] = from[v];
+				toTable[v * k + l] = to[v];
+			}
+		}
+		fromLandmark = DoubleBuffer.wrap(fromTable);
+		toLandmark = DoubleBuffer.wrap(toTable);
+
+		precomputationNanos = System.nanoTime() - startTime;
+		log.info("Selected " + k + " landmarks over " + n + " vertices in " + (precomputationNanos / 1000000) + "ms");
+	}
+
+	/**
+	 * Uses distances precomputed earlier, as read by {@link RoutingGraphFile}.
+	 */
+	LandmarkHeuristic(CompactGraph<V> graph, int[] landmarks, DoubleBuffer fromLandmark, DoubleBuffer toLandmark) {
+		if (fromLandmark.limit() != graph.getVertexCount() * landmarks.length
+				|| toLandmark.limit() != fromLandmark.limit())
+			throw new IllegalArgumentException("landmark tables must have one entry per vertex and landmark");
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+		this.precomputationNanos = 0;
+	}
+
+	private static List<double[]> runAll(ExecutorService executor, List<Callable<double[]>> tasks) {
+		List<double[]> results = new ArrayList<>();
+		try {
+			for (Future<double[]> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while computing landmark distances", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("failed to compute landmark distances", e.getCause());
+		}
+		return results;
+	}
+
+	public CompactGraph<V> getGraph() {
+		return graph;
+	}
+
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	public List<V> getLandmarks() {
+		List<V> toReturn = new ArrayList<>();
+		for (int landmark : landmarks) {
+			toReturn.add(graph.getVertex(landmark));
+		}
+		return toReturn;
+	}
+
+	int[] getLandmarkIndices() {
+		return landmarks;
+	}
+
+	/**
+	 * @return the table, read with absolute gets only
+	 */
+	DoubleBuffer getFromLandmark() {
+		return fromLandmark;
+	}
+
+	DoubleBuffer getToLandmark() {
+		return toLandmark;
+	}
+
+	public long getPrecomputationNanos() {
+		return precomputationNanos;
+	}
+
+	@Override
+	public double getCostEstimate(V source, V target) {
+		int sourceIndex = graph.getIndex(source);
+		int targetIndex = graph.getIndex(target);
+		if (sourceIndex < 0 || targetIndex < 0) {
+			return 0.0;
+		}
+		return getCostEstimate(sourceIndex, targetIndex);
+	}
+
+	/**
+	 * As {@link #getCostEstimate(Object, Object)}, using vertex numbers of
+	 * the graph.
+	 */
+	public double getCostEstimate(int source, int target) {
+		int k = landmarks.length;
+		int sourceOffset = source * k;
+		int targetOffset = target * k;
+		double estimate = 0.0;
+		for (int l = 0; l < k; l++) {
+			// infinite distances mean the landmark gives no bound
+			double forward = fromLandmark.get(targetOffset + l) - fromLandmark.get(sourceOffset + l);
+			if (forward > estimate && forward != Double.POSITIVE_INFINITY) {
+				estimate = forward;
+			}
+			double backward = toLandmark.get(sourceOffset + l) - toLandmark.get(targetOffset + l);
+			if (backward > estimate && backward != Double.POSITIVE_INFINITY) {
+				estimate = backward;
+			}
+		}
+		return estimate;
+	}
+}
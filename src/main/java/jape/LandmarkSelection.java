@@ -0,0 +1,18 @@
+package jape;
+
+/**
+ * How {@link LandmarkHeuristic} picks its landmarks.
+ */
+public enum LandmarkSelection {
+	/**
+	 * Each landmark is the vertex furthest from all the landmarks picked so
+	 * far. Landmarks end up spread around the edges of the graph, which gives
+	 * tight bounds, but each pick has to wait for the distances of the last.
+	 */
+	FARTHEST,
+	/**
+	 * Landmarks are picked at random, so all distance tables can be computed
+	 * at once.
+	 */
+	RANDOM;
+}
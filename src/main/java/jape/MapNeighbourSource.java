@@ -0,0 +1,107 @@
+package jape;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.BasicMap;
+import jape.map.IslandMap;
+
+/**
+ * Successors generated on demand from the linked sites of a map, so no
+ * graph has to be built before searching it.
+ *
+ * By default every site is passable and the cost of a step is its length.
+ * Subclasses can override {@link #isPassable(Coordinate)} and
+ * {@link #getWeight(Coordinate, Coordinate)}; {@link #overLand(IslandMap)}
+ * does so to match the graph GraphTest builds. Impassable sites have no
+ * successors, even when a search starts on one.
+ */
+public class MapNeighbourSource implements NeighbourSource<Coordinate> {
+
+	private final BasicMap map;
+
+	public MapNeighbourSource(BasicMap map) {
+		this.map = map;
+	}
+
+	/**
+	 * @return a source over the land sites of the map, where each step costs
+	 *         its length scaled by 1 + the change in height
+	 */
+	public static MapNeighbourSource overLand(final IslandMap map) {
+		return new MapNeighbourSource(map) {
+			@Override
+			protected boolean isPassable(Coordinate site) {
+				return !map.getIsSiteUnderwater(site);
+			}
+
+			@Override
+			protected double getWeight(Coordinate source, Coordinate target) {
+				double heightChange = Math.abs(map.getHeightOfSite(source) - map.getHeightOfSite(target));
+				return source.distance(target) * (1.0 + heightChange);
+			}
+		};
+	}
+
+	public BasicMap getMap() {
+		return map;
+	}
+
+	/**
+	 * @return whether searches may step onto the site
+	 */
+	protected boolean isPassable(Coordinate site) {
+		return true;
+	}
+
+	/**
+	 * @return the cost of stepping between two linked sites
+	 */
+	protected double getWeight(Coordinate source, Coordinate target) {
+		return source.distance(target);
+	}
+
+	@Override
+	public SuccessorIterator<Coordinate> newSuccessorIterator() {
+		return new SuccessorIterator<Coordinate>() {
+			private Coordinate vertex;
+			private Iterator<Coordinate> linkedSites;
+			private Coordinate successor;
+
+			@Override
+			public void start(Coordinate newVertex) {
+				vertex = newVertex;
+				// an impassable start is a dead end, as it has no vertex in
+				// the equivalent graph
+				linkedSites = isPassable(newVertex) ? map.getLinkedSites(newVertex).iterator()
+						: Collections.<Coordinate> emptyIterator();
+				successor = null;
+			}
+
+			@Override
+			public boolean next() {
+				while (linkedSites.hasNext()) {
+					Coordinate site = linkedSites.next();
+					if (isPassable(site)) {
+						successor = site;
+						return true;
+					}
+				}
+				successor = null;
+				return false;
+			}
+
+			@Override
+			public Coordinate getSuccessor() {
+				return successor;
+			}
+
+			@Override
+			public double getWeight() {
+				return MapNeighbourSource.this.getWeight(vertex, successor);
+			}
+		};
+	}
+}
@@ -0,0 +1,149 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * A* from a fixed start to a goal that keeps moving, such as the site under
+ * the mouse pointer.
+ *
+ * The search tree rooted at the start is kept between queries. Vertices
+ * already expanded have their exact cost from the start, whatever goal the
+ * search was heading for, so a goal inside the tree is answered by reading
+ * its path back, and any other goal by re-keying the open list with
+ * estimates to the new goal and carrying on from where the last search
+ * stopped. The tree only grows, so the work for a run of queries is about
+ * that of one search to the furthest goal. A new start begins a new tree.
+ *
+ * Needs a consistent heuristic, such as the straight line distance on a
+ * graph whose edges are at least as long as the distance they span. The
+ * tree describes the graph as it was, so call {@link #reset()} after the
+ * graph changes. Not thread safe.
+ */
+public class MovingTargetPlanner<V> {
+
+	private final NeighbourSource<V> neighbourSource;
+	private final Heuristic<V> heuristic;
+	private final SearchContext<V> context;
+	private ComponentLabels<V> componentLabels = null;
+
+	/**
+	 * The root of the tree, or null if there is none.
+	 */
+	private V start = null;
+	private int startIndex;
+	/**
+	 * The goal the keys in the open list estimate the cost to.
+	 */
+	private V keyedGoal = null;
+	private long totalExpanded = 0;
+
+	public <E> MovingTargetPlanner(SimpleDirectedWeightedGraph<V, E> graph, Heuristic<V> heuristic) {
+		this(new GraphNeighbourSource<>(graph), heuristic, OpenListStrategy.BINARY_HEAP);
+	}
+
+	public MovingTargetPlanner(NeighbourSource<V> neighbourSource, Heuristic<V> heuristic,
+			OpenListStrategy openListStrategy) {
+		this.neighbourSource = neighbourSource;
+		this.heuristic = heuristic;
+		this.context = new SearchContext<>(openListStrategy);
+	}
+
+	public ComponentLabels<V> getComponentLabels() {
+		return componentLabels;
+	}
+
+	/**
+	 * @param componentLabels
+	 *            checked before every search, so that a goal the start
+	 *            cannot reach returns at once instead of growing the tree
+	 *            over the whole component
+	 */
+	public void setComponentLabels(ComponentLabels<V> componentLabels) {
+		this.componentLabels = componentLabels;
+	}
+
+	/**
+	 * @return vertices expanded since the tree was started
+	 */
+	public long getTotalExpanded() {
+		return totalExpanded;
+	}
+
+	/**
+	 * Forgets the tree, so the next search starts afresh.
+	 */
+	public void reset() {
+		start = null;
+		keyedGoal = null;
+	}
+
+	public List<V> findpath(V start, V goal) {
+		return search(start, goal).getPath();
+	}
+
+	/**
+	 * @return the path from goal back to start, and the vertices expanded
+	 *         by this query alone
+	 */
+	public PathResult<V> search(V start, V goal) {
+		long startTime = System.nanoTime();
+		if (componentLabels != null && !componentLabels.mayReach(start, goal)) {
+			return new PathResult<>(null, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startTime);
+		}
+		IntMinHeap open = context.getOpen();
+		if (!start.equals(this.start)) {
+			context.begin();
+			this.start = start;
+			startIndex = context.indexOf(start);
+			context.reach(startIndex, 0.0, -1);
+			open.put(startIndex, heuristic.getCostEstimate(start, goal));
+			keyedGoal = goal;
+			totalExpanded = 0;
+		}
+		int goalIndex = context.indexOf(goal);
+		if (!isExpanded(goalIndex) && !goal.equals(keyedGoal)) {
+			open.rekeyAll(v -> context.getCost(v) + heuristic.getCostEstimate(context.getVertex(v), goal));
+			keyedGoal = goal;
+		}
+
+		int expanded = 0;
+		SuccessorIterator<V> successors = context.getSuccessorIterator(neighbourSource);
+		// the goal is expanded too, as every vertex in the tree must be
+		while (!isExpanded(goalIndex)) {
+			if (open.isEmpty()) {
+				// the tree covers all the start can reach
+				totalExpanded += expanded;
+				return new PathResult<>(null, Double.POSITIVE_INFINITY, expanded, System.nanoTime() - startTime);
+			}
+			int current = open.poll();
+			expanded++;
+			double currentCost = context.getCost(current);
+
+			successors.start(context.getVertex(current));
+			while (successors.next()) {
+				V neighbourVertex = successors.getSuccessor();
+				int neighbour = context.indexOf(neighbourVertex);
+				double cost = currentCost + successors.getWeight();
+				if (!context.isReached(neighbour) || cost < context.getCost(neighbour)) {
+					context.reach(neighbour, cost, current);
+					open.put(neighbour, cost + heuristic.getCostEstimate(neighbourVertex, goal));
+				}
+			}
+		}
+		totalExpanded += expanded;
+
+		List<V> path = new ArrayList<>();
+		for (int current = goalIndex; current != startIndex; current = context.getCameFrom(current)) {
+			path.add(context.getVertex(current));
+		}
+		path.add(start);
+		return new PathResult<>(path, context.getCost(goalIndex), expanded, System.nanoTime() - startTime);
+	}
+
+	private boolean isExpanded(int vertex) {
+		return context.isReached(vertex) && !context.getOpen().contains(vertex);
+	}
+}
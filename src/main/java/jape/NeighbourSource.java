@@ -0,0 +1,18 @@
+package jape;
+
+/**
+ * The successors of each vertex and the cost of stepping to them, which is
+ * all a search needs to know about a graph. The graph may be a JGraphT
+ * graph, a {@link CompactGraph}, or generated on demand.
+ *
+ * Implementations must be safe to read from several threads; the iterators
+ * they hand out need not be.
+ */
+public interface NeighbourSource<V> {
+
+	/**
+	 * @return a new iterator, which a search keeps and restarts for each
+	 *         vertex it expands
+	 */
+	public SuccessorIterator<V> newSuccessorIterator();
+}
@@ -0,0 +1,40 @@
+package jape;
+
+/**
+ * Priority queue of vertices for the open list of a search, lowest priority
+ * first. Each vertex is queued at most once; putting a vertex that is
+ * already queued changes its priority.
+ */
+public interface OpenList<V> {
+
+	/**
+	 * Adds the vertex, or changes its priority if it is already queued.
+	 */
+	public void put(V vertex, double priority);
+
+	public boolean contains(V vertex);
+
+	/**
+	 * @return the priority of the queued vertex
+	 */
+	public double getPriority(V vertex);
+
+	/**
+	 * @return the vertex with the lowest priority, or null if empty
+	 */
+	public V peek();
+
+	/**
+	 * Removes and returns the vertex with the lowest priority, or null if
+	 * empty.
+	 */
+	public V poll();
+
+	public void remove(V vertex);
+
+	public int size();
+
+	public boolean isEmpty();
+
+	public void clear();
+}
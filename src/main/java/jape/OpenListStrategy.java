@@ -0,0 +1,34 @@
+package jape;
+
+/**
+ * The open list implementations available to {@link AStarBuilder}.
+ */
+public enum OpenListStrategy {
+	/**
+	 * Indexed binary heap.
+	 */
+	BINARY_HEAP(2),
+	/**
+	 * Indexed 4-ary heap. Shallower than a binary heap, so insertions and
+	 * decrease-key are cheaper, at the cost of more comparisons per poll.
+	 */
+	QUATERNARY_HEAP(4);
+
+	private final int arity;
+
+	private OpenListStrategy(int arity) {
+		this.arity = arity;
+	}
+
+	public <V> OpenList<V> createOpenList() {
+		return new IndexedDaryHeap<>(arity);
+	}
+
+	/**
+	 * @return a heap of the same arity over vertex numbers, for searches that
+	 *         number their vertices
+	 */
+	public IntMinHeap createIntMinHeap(int capacity) {
+		return new IntMinHeap(capacity, arity);
+	}
+}
@@ -0,0 +1,146 @@
+package jape;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded least-recently-used cache of path results in front of an
+ * {@link AStarBuilder}.
+ *
+ * When the graph is a {@link VersionedGraph}, every entry is tagged with the
+ * graph version it was computed against. Once the graph changes all entries
+ * are dropped, and results still being computed against the old version
+ * can never be returned. Other graphs must call {@link #invalidateAll()}
+ * themselves after changing.
+ */
+public class PathCache<V, E> {
+
+	private final AStarBuilder<V, E> aStarBuilder;
+	private final Cache<Key<V>, PathResult<V>> cache;
+	private volatile long version;
+
+	private PathCache(AStarBuilder<V, E> aStarBuilder, CacheBuilder<Object, Object> cacheBuilder) {
+		this.aStarBuilder = aStarBuilder;
+		this.cache = cacheBuilder.recordStats().build();
+		this.version = getGraphVersion();
+	}
+
+	/**
+	 * @return a cache holding at most maximumSize paths
+	 */
+	public static <V, E> PathCache<V, E> withMaximumSize(AStarBuilder<V, E> aStarBuilder, long maximumSize) {
+		return new PathCache<>(aStarBuilder, CacheBuilder.newBuilder().maximumSize(maximumSize));
+	}
+
+	/**
+	 * @return a cache holding paths with at most maximumVertices vertices
+	 *         between them, so long paths take more room than short ones
+	 */
+	public static <V, E> PathCache<V, E> withMaximumWeight(AStarBuilder<V, E> aStarBuilder,
+			long maximumVertices) {
+		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumWeight(maximumVertices)
+				.weigher(new Weigher<Object, Object>() {
+					@Override
+					public int weigh(Object key, Object value) {
+						List<?> path = ((PathResult<?>) value).getPath();
+						// failed searches still cost an entry
+						return path == null ? 1 : path.size();
+					}
+				});
+		return new PathCache<>(aStarBuilder, cacheBuilder);
+	}
+
+	public List<V> findpath(V start, V goal) {
+		return search(start, goal).getPath();
+	}
+
+	/**
+	 * Returns the cached result for the pair, computing it if needed. The
+	 * cost and effort reported are those of the search that filled the
+	 * entry. The paths are shared between callers, so cannot be modified.
+	 */
+	public PathResult<V> search(final V start, final V goal) {
+		long currentVersion = getGraphVersion();
+		if (currentVersion != version) {
+			version = currentVersion;
+			cache.invalidateAll();
+		}
+		try {
+			return cache.get(new Key<>(new PathQuery<>(start, goal), currentVersion),
+					new Callable<PathResult<V>>() {
+						@Override
+						public PathResult<V> call() {
+							return unmodifiable(aStarBuilder.search(start, goal));
+						}
+					});
+		} catch (UncheckedExecutionException | ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("failed to find path", e.getCause());
+		}
+	}
+
+	private static <V> PathResult<V> unmodifiable(PathResult<V> result) {
+		return new PathResult<>(unmodifiable(result.getPath()), result.getCost(), result.getExpanded(),
+				result.getElapsedNanos(), result.getSuboptimalityBound(), result.getStatus(),
+				unmodifiable(result.getPartialPath()));
+	}
+
+	private static <V> List<V> unmodifiable(List<V> path) {
+		return path == null ? null : Collections.unmodifiableList(path);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return hit, miss and eviction counts since the cache was created
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	private long getGraphVersion() {
+		if (aStarBuilder.getGraph() instanceof VersionedGraph) {
+			return ((VersionedGraph<V, E>) aStarBuilder.getGraph()).getVersion();
+		}
+		return 0;
+	}
+
+	private static class Key<V> {
+		private final PathQuery<V> query;
+		private final long version;
+
+		private Key(PathQuery<V> query, long version) {
+			this.query = query;
+			this.version = version;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * query.hashCode() + Long.hashCode(version);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key<?> other = (Key<?>) obj;
+			return version == other.version && query.equals(other.query);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package jape;
+
+/**
+ * A start and goal pair to find a path between.
+ */
+public class PathQuery<V> {
+
+	private final V start;
+	private final V goal;
+
+	public PathQuery(V start, V goal) {
+		if (start == null)
+			throw new IllegalArgumentException("start cannot be null");
+		if (goal == null)
+			throw new IllegalArgumentException("goal cannot be null");
+		this.start = start;
+		this.goal = goal;
+	}
+
+	public V getStart() {
+		return start;
+	}
+
+	public V getGoal() {
+		return goal;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * start.hashCode() + goal.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof PathQuery))
+			return false;
+		PathQuery<?> other = (PathQuery<?>) obj;
+		return start.equals(other.start) && goal.equals(other.goal);
+	}
+
+	@Override
+	public String toString() {
+		return "PathQuery [start=" + start + ", goal=" + goal + "]";
+	}
+}
@@ -0,0 +1,104 @@
+package jape;
+
+import java.util.List;
+
+/**
+ * The outcome of one path query, with the effort it took.
+ */
+public class PathResult<V> {
+
+	private final List<V> path;
+	private final double cost;
+	private final int expanded;
+	private final long elapsedNanos;
+	private final double suboptimalityBound;
+	private final SearchStatus status;
+	private final List<V> partialPath;
+
+	public PathResult(List<V> path, double cost, int expanded, long elapsedNanos) {
+		this(path, cost, expanded, elapsedNanos, 1.0);
+	}
+
+	public PathResult(List<V> path, double cost, int expanded, long elapsedNanos, double suboptimalityBound) {
+		this(path, cost, expanded, elapsedNanos, suboptimalityBound, SearchStatus.COMPLETED, null);
+	}
+
+	public PathResult(List<V> path, double cost, int expanded, long elapsedNanos, double suboptimalityBound,
+			SearchStatus status, List<V> partialPath) {
+		this.path = path;
+		this.cost = cost;
+		this.expanded = expanded;
+		this.elapsedNanos = elapsedNanos;
+		this.suboptimalityBound = suboptimalityBound;
+		this.status = status;
+		this.partialPath = partialPath;
+	}
+
+	/**
+	 * @return the path from goal back to start, or null if there is no path
+	 */
+	public List<V> getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the vertex the path ends at, which for a nearest goal search
+	 *         is the goal reached; null if there is no path
+	 */
+	public V getGoal() {
+		return path == null ? null : path.get(0);
+	}
+
+	public boolean isFound() {
+		return path != null;
+	}
+
+	/**
+	 * @return total edge weight of the path, or positive infinity if there
+	 *         is no path
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return number of vertices taken off the open list
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return whether the search ran to the end or was stopped by a limit
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return for a search stopped before finding the goal, the path from
+	 *         the vertex that looked closest to the goal back to start;
+	 *         otherwise null
+	 */
+	public List<V> getPartialPath() {
+		return partialPath;
+	}
+
+	/**
+	 * @return how many times the optimal cost the path may cost at most; 1
+	 *         for searches that always find the best path
+	 */
+	public double getSuboptimalityBound() {
+		return suboptimalityBound;
+	}
+
+	@Override
+	public String toString() {
+		return "PathResult [found=" + isFound() + ", cost=" + cost + ", expanded=" + expanded + ", elapsedNanos="
+				+ elapsedNanos + ", suboptimalityBound=" + suboptimalityBound + ", status=" + status + "]";
+	}
+}
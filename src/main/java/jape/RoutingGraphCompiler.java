@@ -0,0 +1,158 @@
+package jape;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.IslandMap;
+
+/**
+ * Compiles the sites of an {@link IslandMap} into a routing graph, with an
+ * edge each way between linked sites that both pass the filter.
+ *
+ * The successors and edge costs of every site are worked out in parallel
+ * first, then copied into the graph in one pass, either a JGraphT graph or
+ * a {@link CompactGraph}.
+ */
+public class RoutingGraphCompiler {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final IslandMap map;
+	private final EdgeCostFunction edgeCostFunction;
+	private final Predicate<Coordinate> siteFilter;
+
+	/**
+	 * Compiles the land sites, with {@link EdgeCostFunction#HEIGHT_SCALED_DISTANCE}.
+	 */
+	public RoutingGraphCompiler(IslandMap map) {
+		this(map, EdgeCostFunction.HEIGHT_SCALED_DISTANCE, site -> !map.getIsSiteUnderwater(site));
+	}
+
+	/**
+	 * @param siteFilter
+	 *            true for sites to include
+	 */
+	public RoutingGraphCompiler(IslandMap map, EdgeCostFunction edgeCostFunction, Predicate<Coordinate> siteFilter) {
+		this.map = map;
+		this.edgeCostFunction = edgeCostFunction;
+		this.siteFilter = siteFilter;
+	}
+
+	/**
+	 * @return a {@link VersionedGraph}, so that what is derived from it, such
+	 *         as the component labels an {@link AStarBuilder} builds over
+	 *         it, can tell when it is edited
+	 */
+	public VersionedGraph<Coordinate, DefaultWeightedEdge> compileGraph() {
+		VersionedGraph<Coordinate, DefaultWeightedEdge> graph = new VersionedGraph<>(DefaultWeightedEdge.class);
+		compileGraph(graph);
+		return graph;
+	}
+
+	/**
+	 * Adds the sites and edges to the given graph, for example a
+	 * {@link VersionedGraph}.
+	 *
+	 * @return the graph
+	 */
+	public <E> SimpleDirectedWeightedGraph<Coordinate, E> compileGraph(SimpleDirectedWeightedGraph<Coordinate, E> graph) {
+		long startTime = System.nanoTime();
+		Compiled compiled = compile();
+		for (Coordinate site : compiled.sites) {
+			graph.addVertex(site);
+		}
+		for (int i = 0; i < compiled.sites.size(); i++) {
+			Coordinate site = compiled.sites.get(i);
+			int[] targets = compiled.targets[i];
+			double[] weights = compiled.weights[i];
+			for (int j = 0; j < targets.length; j++) {
+				E edge = graph.addEdge(site, compiled.sites.get(targets[j]));
+				graph.setEdgeWeight(edge, weights[j]);
+			}
+		}
+		log.info("Compiled " + graph.vertexSet().size() + " sites and " + graph.edgeSet().size() + " edges in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+		return graph;
+	}
+
+	public CompactGraph<Coordinate> compileCompact() {
+		long startTime = System.nanoTime();
+		Compiled compiled = compile();
+		int n = compiled.sites.size();
+		int[] firstEdge = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			firstEdge[i + 1] = firstEdge[i] + compiled.targets[i].length;
+		}
+		int[] edgeTarget = new int[firstEdge[n]];
+		double[] edgeWeight = new double[firstEdge[n]];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(compiled.targets[i], 0, edgeTarget, firstEdge[i], compiled.targets[i].length);
+			System.arraycopy(compiled.weights[i], 0, edgeWeight, firstEdge[i], compiled.weights[i].length);
+		}
+		CompactGraph<Coordinate> graph = new CompactGraph<>(compiled.sites, firstEdge, edgeTarget, edgeWeight);
+		log.info("Compiled " + n + " sites and " + edgeTarget.length + " edges in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+		return graph;
+	}
+
+	/**
+	 * Numbers the included sites and works out the edges of each in
+	 * parallel.
+	 */
+	private Compiled compile() {
+		final List<Coordinate> sites = new ArrayList<>();
+		final Map<Coordinate, Integer> index = new HashMap<>();
+		for (Coordinate site : map.getSites()) {
+			if (siteFilter.test(site)) {
+				index.put(site, sites.size());
+				sites.add(site);
+			}
+		}
+		final int[][] targets = new int[sites.size()][];
+		final double[][] weights = new double[sites.size()][];
+		IntStream.range(0, sites.size()).parallel().forEach(i -> {
+			Coordinate site = sites.get(i);
+			List<Coordinate> linked = new ArrayList<>();
+			for (Coordinate linkedSite : map.getLinkedSites(site)) {
+				if (index.containsKey(linkedSite)) {
+					linked.add(linkedSite);
+				}
+			}
+			int[] siteTargets = new int[linked.size()];
+			double[] siteWeights = new double[linked.size()];
+			for (int j = 0; j < linked.size(); j++) {
+				siteTargets[j] = index.get(linked.get(j));
+				siteWeights[j] = edgeCostFunction.getCost(map, site, linked.get(j));
+			}
+			targets[i] = siteTargets;
+			weights[i] = siteWeights;
+		});
+		return new Compiled(sites, targets, weights);
+	}
+
+	private static class Compiled {
+		private final List<Coordinate> sites;
+		/**
+		 * Numbers of the successors of each site.
+		 */
+		private final int[][] targets;
+		private final double[][] weights;
+
+		private Compiled(List<Coordinate> sites, int[][] targets, double[][] weights) {
+			this.sites = sites;
+			this.targets = targets;
+			this.weights = weights;
+		}
+	}
+}
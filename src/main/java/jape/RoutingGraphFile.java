@@ -0,0 +1,234 @@
+package jape;
+
+import static jape.map.BinaryColumns.putDoubles;
+import static jape.map.BinaryColumns.putInts;
+import static jape.map.BinaryColumns.viewDoubles;
+import static jape.map.BinaryColumns.viewInts;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.IslandMap;
+
+/**
+ * Compiled routing graph saved to disk, so a process can load it instead of
+ * building the map and graph again.
+ *
+ * The file is little endian: a header of six ints (magic, version, vertex
+ * count n, edge count m, landmark count k and a reserved zero), then the
+ * double columns x[n], y[n], height[n], edgeWeight[m], incomingEdgeWeight[m],
+ * fromLandmark[n * k] and toLandmark[n * k], then the int columns
+ * firstEdge[n + 1], edgeTarget[m], firstIncomingEdge[n + 1],
+ * incomingEdgeSource[m] and landmark[k]. Every column is laid out as
+ * {@link CompactGraph} and {@link LandmarkHeuristic} hold it, transpose
+ * included.
+ *
+ * Reading maps the file read-only and hands the graph, heights and landmark
+ * tables views of the mapping rather than copies, so they are paged in as
+ * searches touch them, and processes reading the same file share one copy
+ * in the page cache. Only the vertices, their index and the landmark
+ * numbers are built on the heap.
+ */
+public class RoutingGraphFile {
+
+	private static final Logger log = LoggerFactory.getLogger(RoutingGraphFile.class);
+
+	/**
+	 * "JAPG"
+	 */
+	private static final int MAGIC = 0x4A415047;
+	public static final int VERSION = 2;
+	private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+	private final CompactGraph<Coordinate> graph;
+	private final DoubleBuffer heights;
+	private final LandmarkHeuristic<Coordinate> landmarkHeuristic;
+
+	private RoutingGraphFile(CompactGraph<Coordinate> graph, DoubleBuffer heights,
+			LandmarkHeuristic<Coordinate> landmarkHeuristic) {
+		this.graph = graph;
+		this.heights = heights;
+		this.landmarkHeuristic = landmarkHeuristic;
+	}
+
+	public CompactGraph<Coordinate> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return the height of the site the vertex was compiled from
+	 */
+	public double getHeight(int vertex) {
+		return heights.get(vertex);
+	}
+
+	public boolean hasLandmarks() {
+		return landmarkHeuristic != null;
+	}
+
+	/**
+	 * @return the saved landmarks, or null if none were saved
+	 */
+	public LandmarkHeuristic<Coordinate> getLandmarkHeuristic() {
+		return landmarkHeuristic;
+	}
+
+	public static void write(Path file, CompactGraph<Coordinate> graph, IslandMap map) throws IOException {
+		write(file, graph, map, null);
+	}
+
+	/**
+	 * Writes to a temporary file beside the target and then moves it into
+	 * place, so processes reading the old file are not disturbed.
+	 *
+	 * @param map
+	 *            gives the heights of the sites
+	 * @param landmarkHeuristic
+	 *            landmarks over the graph to save with it, or null
+	 */
+	public static void write(Path file, CompactGraph<Coordinate> graph, IslandMap map,
+			LandmarkHeuristic<Coordinate> landmarkHeuristic) throws IOException {
+		if (landmarkHeuristic != null && landmarkHeuristic.getGraph() != graph)
+			throw new IllegalArgumentException("landmarkHeuristic must be over the graph being written");
+		long startTime = System.nanoTime();
+		int n = graph.getVertexCount();
+		int m = graph.getEdgeCount();
+		int k = landmarkHeuristic == null ? 0 : landmarkHeuristic.getLandmarkCount();
+
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] height = new double[n];
+		int[] firstEdge = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			Coordinate site = graph.getVertex(v);
+			x[v] = site.x;
+			y[v] = site.y;
+			height[v] = map.getHeightOfSite(site);
+			firstEdge[v] = graph.getFirstEdge(v);
+		}
+		firstEdge[n] = m;
+		int[] firstIncomingEdge = new int[n + 1];
+		for (int v = 0; v <= n; v++) {
+			firstIncomingEdge[v] = v < n ? graph.getFirstIncomingEdge(v) : m;
+		}
+		double[] edgeWeight = new double[m];
+		int[] edgeTarget = new int[m];
+		double[] incomingEdgeWeight = new double[m];
+		int[] incomingEdgeSource = new int[m];
+		for (int edge = 0; edge < m; edge++) {
+			edgeWeight[edge] = graph.getEdgeWeight(edge);
+			edgeTarget[edge] = graph.getEdgeTarget(edge);
+			incomingEdgeWeight[edge] = graph.getIncomingEdgeWeight(edge);
+			incomingEdgeSource[edge] = graph.getIncomingEdgeSource(edge);
+		}
+
+		long size = getFileSize(n, m, k);
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("graph is too large for one file");
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putInt(k).putInt(0);
+			putDoubles(buffer, x);
+			putDoubles(buffer, y);
+			putDoubles(buffer, height);
+			putDoubles(buffer, edgeWeight);
+			putDoubles(buffer, incomingEdgeWeight);
+			if (k > 0) {
+				putDoubles(buffer, landmarkHeuristic.getFromLandmark());
+				putDoubles(buffer, landmarkHeuristic.getToLandmark());
+			}
+			putInts(buffer, firstEdge);
+			putInts(buffer, edgeTarget);
+			putInts(buffer, firstIncomingEdge);
+			putInts(buffer, incomingEdgeSource);
+			if (k > 0) {
+				putInts(buffer, landmarkHeuristic.getLandmarkIndices());
+			}
+			buffer.force();
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		log.info("Wrote " + n + " vertices and " + m + " edges to " + file + " in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+	}
+
+	/**
+	 * Maps the file and reads the graph, heights and any landmark tables
+	 * from it. The mapping stays valid after the file is closed, and even if
+	 * it is replaced by {@link #write}.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read, is not a routing graph file of
+	 *             this version, or is truncated
+	 */
+	public static RoutingGraphFile read(Path file) throws IOException {
+		long startTime = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a routing graph file");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt() != MAGIC)
+				throw new IOException(file + " is not a routing graph file");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException(file + " is version " + version + ", expected " + VERSION);
+			int n = buffer.getInt();
+			int m = buffer.getInt();
+			int k = buffer.getInt();
+			buffer.getInt();
+			if (n < 0 || m < 0 || k < 0 || getFileSize(n, m, k) != size)
+				throw new IOException(file + " is truncated or corrupt");
+
+			DoubleBuffer x = viewDoubles(buffer, n);
+			DoubleBuffer y = viewDoubles(buffer, n);
+			DoubleBuffer heights = viewDoubles(buffer, n);
+			DoubleBuffer edgeWeight = viewDoubles(buffer, m);
+			DoubleBuffer incomingEdgeWeight = viewDoubles(buffer, m);
+			DoubleBuffer fromLandmark = viewDoubles(buffer, n * k);
+			DoubleBuffer toLandmark = viewDoubles(buffer, n * k);
+			IntBuffer firstEdge = viewInts(buffer, n + 1);
+			IntBuffer edgeTarget = viewInts(buffer, m);
+			IntBuffer firstIncomingEdge = viewInts(buffer, n + 1);
+			IntBuffer incomingEdgeSource = viewInts(buffer, m);
+			int[] landmarks = new int[k];
+			viewInts(buffer, k).get(landmarks);
+
+			List<Coordinate> vertices = new ArrayList<>(n);
+			for (int v = 0; v < n; v++) {
+				vertices.add(new Coordinate(x.get(v), y.get(v)));
+			}
+			CompactGraph<Coordinate> graph = new CompactGraph<>(vertices, firstEdge, edgeTarget, edgeWeight,
+					firstIncomingEdge, incomingEdgeSource, incomingEdgeWeight);
+			LandmarkHeuristic<Coordinate> landmarkHeuristic = k == 0 ? null
+					: new LandmarkHeuristic<>(graph, landmarks, fromLandmark, toLandmark);
+			log.info("Read " + n + " vertices and " + m + " edges from " + file + " in "
+					+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+			return new RoutingGraphFile(graph, heights, landmarkHeuristic);
+		}
+	}
+
+	private static long getFileSize(int n, int m, int k) {
+		long doubles = 3L * n + 2L * m + 2L * n * k;
+		long ints = 2L * (n + 1L) + 2L * m + k;
+		return HEADER_BYTES + doubles * Double.BYTES + ints * Integer.BYTES;
+	}
+}
@@ -0,0 +1,143 @@
+package jape;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The working state of a search, kept between searches so that a thread
+ * running many queries does not allocate it again for each one.
+ *
+ * Vertices are numbered the first time a search reaches them, and the
+ * state of each vertex is held in arrays indexed by that number. Each entry
+ * is stamped with the search that wrote it, so starting a new search only
+ * increments the current stamp instead of clearing the arrays. Once the
+ * vertices of the graph have all been numbered, the search itself allocates
+ * only its result and the path it returns. The neighbour source may add to
+ * that: {@link CompactNeighbourSource} allocates nothing, but
+ * {@link GraphNeighbourSource} allocates an edge iterator for each vertex
+ * expanded.
+ *
+ * Not thread safe; use one per thread.
+ */
+public class SearchContext<V> {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<V, Integer> index = new HashMap<>();
+	private Object[] vertices = new Object[INITIAL_CAPACITY];
+	/**
+	 * The search in which each vertex was last reached; its cost and
+	 * cameFrom are only valid if this is the current search.
+	 */
+	private int[] reachedIn = new int[INITIAL_CAPACITY];
+	private double[] cost = new double[INITIAL_CAPACITY];
+	private int[] cameFrom = new int[INITIAL_CAPACITY];
+	private final IntMinHeap open;
+	private int generation = 0;
+	private NeighbourSource<V> neighbourSource = null;
+	private SuccessorIterator<V> successors = null;
+
+	public SearchContext() {
+		this(OpenListStrategy.BINARY_HEAP);
+	}
+
+	public SearchContext(OpenListStrategy openListStrategy) {
+		open = openListStrategy.createIntMinHeap(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @return the number of distinct vertices searches have reached so far
+	 */
+	public int getVertexCount() {
+		return index.size();
+	}
+
+	/**
+	 * Forgets the state of the previous search.
+	 */
+	void begin() {
+		open.clear();
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			// start counting again rather than overflow into old stamps
+			Arrays.fill(reachedIn, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Sets the stamp the next search counts on from, so that tests can reach
+	 * the wrap-around without running two billion searches.
+	 */
+	void setGeneration(int generation) {
+		this.generation = generation;
+	}
+
+	IntMinHeap getOpen() {
+		return open;
+	}
+
+	/**
+	 * @return an iterator over the source, kept while searches use the same
+	 *         source
+	 */
+	SuccessorIterator<V> getSuccessorIterator(NeighbourSource<V> source) {
+		if (source != neighbourSource) {
+			neighbourSource = source;
+			successors = source.newSuccessorIterator();
+		}
+		return successors;
+	}
+
+	/**
+	 * @return the number of the vertex, numbering it if it is new
+	 */
+	int indexOf(V vertex) {
+		Integer known = index.get(vertex);
+		if (known != null) {
+			return known;
+		}
+		int number = index.size();
+		if (number == vertices.length) {
+			grow(number * 2);
+		}
+		index.put(vertex, number);
+		vertices[number] = vertex;
+		return number;
+	}
+
+	@SuppressWarnings("unchecked")
+	V getVertex(int number) {
+		return (V) vertices[number];
+	}
+
+	boolean isReached(int number) {
+		return reachedIn[number] == generation;
+	}
+
+	double getCost(int number) {
+		return cost[number];
+	}
+
+	int getCameFrom(int number) {
+		return cameFrom[number];
+	}
+
+	/**
+	 * Records a path to the vertex.
+	 */
+	void reach(int number, double newCost, int from) {
+		reachedIn[number] = generation;
+		cost[number] = newCost;
+		cameFrom[number] = from;
+	}
+
+	private void grow(int capacity) {
+		vertices = Arrays.copyOf(vertices, capacity);
+		reachedIn = Arrays.copyOf(reachedIn, capacity);
+		cost = Arrays.copyOf(cost, capacity);
+		cameFrom = Arrays.copyOf(cameFrom, capacity);
+		open.ensureCapacity(capacity);
+	}
+}
@@ -0,0 +1,97 @@
+package jape;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds on how long a search may run. Immutable; each with method returns
+ * a copy with one more limit set.
+ */
+public final class SearchLimits {
+
+	/**
+	 * Lets searches run until they complete.
+	 */
+	public static final SearchLimits NONE = new SearchLimits(Integer.MAX_VALUE, false, 0L, null);
+
+	private final int maxExpansions;
+	private final boolean hasDeadline;
+	private final long deadlineNanoTime;
+	private final CancellationToken cancellationToken;
+
+	private SearchLimits(int maxExpansions, boolean hasDeadline, long deadlineNanoTime,
+			CancellationToken cancellationToken) {
+		this.maxExpansions = maxExpansions;
+		this.hasDeadline = hasDeadline;
+		this.deadlineNanoTime = deadlineNanoTime;
+		this.cancellationToken = cancellationToken;
+	}
+
+	public SearchLimits withMaxExpansions(int newMaxExpansions) {
+		if (newMaxExpansions < 0)
+			throw new IllegalArgumentException("maxExpansions cannot be negative");
+		return new SearchLimits(newMaxExpansions, hasDeadline, deadlineNanoTime, cancellationToken);
+	}
+
+	/**
+	 * @param newDeadlineNanoTime
+	 *            the value of {@link System#nanoTime()} after which the search
+	 *            stops
+	 */
+	public SearchLimits withDeadline(long newDeadlineNanoTime) {
+		return new SearchLimits(maxExpansions, true, newDeadlineNanoTime, cancellationToken);
+	}
+
+	/**
+	 * Sets the deadline to the given time from now.
+	 */
+	public SearchLimits withTimeout(long timeout, TimeUnit unit) {
+		return withDeadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	public SearchLimits withCancellationToken(CancellationToken newCancellationToken) {
+		return new SearchLimits(maxExpansions, hasDeadline, deadlineNanoTime, newCancellationToken);
+	}
+
+	public int getMaxExpansions() {
+		return maxExpansions;
+	}
+
+	public boolean hasDeadline() {
+		return hasDeadline;
+	}
+
+	public long getDeadlineNanoTime() {
+		return deadlineNanoTime;
+	}
+
+	/**
+	 * @return the cancellation token, or null if there is none
+	 */
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+
+	/**
+	 * @param expanded
+	 *            vertices expanded so far
+	 * @return why the search must stop, or null if it can go on
+	 */
+	SearchStatus check(int expanded) {
+		if (expanded >= maxExpansions) {
+			return SearchStatus.EXPANSION_LIMIT_REACHED;
+		}
+		if (hasDeadline && System.nanoTime() - deadlineNanoTime >= 0) {
+			return SearchStatus.DEADLINE_PASSED;
+		}
+		if (cancellationToken != null && cancellationToken.isCancelled()) {
+			return SearchStatus.CANCELLED;
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchLimits [maxExpansions=" + maxExpansions + ", hasDeadline=" + hasDeadline
+				+ ", deadlineNanoTime=" + deadlineNanoTime + ", cancellationToken=" + cancellationToken + "]";
+	}
+}
@@ -0,0 +1,9 @@
+package jape;
+
+/**
+ * Told about every query a search runs, for example to record metrics.
+ * Called on the searching thread, so it must be quick and thread safe.
+ */
+public interface SearchListener<V> {
+	public void searchFinished(V start, V goal, SearchStatistics statistics);
+}
@@ -0,0 +1,77 @@
+package jape;
+
+/**
+ * Counts of the work done by one search.
+ */
+public class SearchStatistics {
+
+	private final SearchStatus status;
+	private final boolean found;
+	private final int expanded;
+	private final int reopened;
+	private final int peakOpenSize;
+	private final int edgesRelaxed;
+	private final int heuristicCalls;
+	private final long elapsedNanos;
+
+	public SearchStatistics(SearchStatus status, boolean found, int expanded, int reopened, int peakOpenSize,
+			int edgesRelaxed, int heuristicCalls, long elapsedNanos) {
+		this.status = status;
+		this.found = found;
+		this.expanded = expanded;
+		this.reopened = reopened;
+		this.peakOpenSize = peakOpenSize;
+		this.edgesRelaxed = edgesRelaxed;
+		this.heuristicCalls = heuristicCalls;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	public boolean isFound() {
+		return found;
+	}
+
+	/**
+	 * @return number of vertices taken off the open list
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return number of times an expanded vertex was queued again because a
+	 *         cheaper path to it was found
+	 */
+	public int getReopened() {
+		return reopened;
+	}
+
+	public int getPeakOpenSize() {
+		return peakOpenSize;
+	}
+
+	/**
+	 * @return number of edges looked at from expanded vertices
+	 */
+	public int getEdgesRelaxed() {
+		return edgesRelaxed;
+	}
+
+	public int getHeuristicCalls() {
+		return heuristicCalls;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchStatistics [status=" + status + ", found=" + found + ", expanded=" + expanded + ", reopened="
+				+ reopened + ", peakOpenSize=" + peakOpenSize + ", edgesRelaxed=" + edgesRelaxed
+				+ ", heuristicCalls=" + heuristicCalls + ", elapsedNanos=" + elapsedNanos + "]";
+	}
+}
@@ -0,0 +1,24 @@
+package jape;
+
+/**
+ * How a search ended.
+ */
+public enum SearchStatus {
+	/**
+	 * The search ran to the end: either the path was found, or there is no
+	 * path.
+	 */
+	COMPLETED,
+	/**
+	 * Stopped after expanding the maximum number of vertices.
+	 */
+	EXPANSION_LIMIT_REACHED,
+	/**
+	 * Stopped because the deadline passed.
+	 */
+	DEADLINE_PASSED,
+	/**
+	 * Stopped because the cancellation token was cancelled.
+	 */
+	CANCELLED;
+}
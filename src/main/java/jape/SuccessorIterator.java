@@ -0,0 +1,34 @@
+package jape;
+
+/**
+ * Reusable cursor over the successors of one vertex at a time, so that
+ * expanding a vertex need not allocate. Use as:
+ *
+ * <pre>
+ * successors.start(vertex);
+ * while (successors.next()) {
+ * 	visit(successors.getSuccessor(), successors.getWeight());
+ * }
+ * </pre>
+ */
+public interface SuccessorIterator<V> {
+
+	/**
+	 * Moves to before the first successor of vertex.
+	 */
+	public void start(V vertex);
+
+	/**
+	 * Moves to the next successor.
+	 *
+	 * @return false if there are no more
+	 */
+	public boolean next();
+
+	public V getSuccessor();
+
+	/**
+	 * @return the cost of stepping from the vertex to the current successor
+	 */
+	public double getWeight();
+}
@@ -0,0 +1,91 @@
+package jape;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jgrapht.EdgeFactory;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+/**
+ * A {@link SimpleDirectedWeightedGraph} that counts its changes, so that
+ * anything derived from it, such as cached paths, can tell when it is out
+ * of date. Every added or removed vertex or edge and every changed edge
+ * weight moves the version on.
+ */
+public class VersionedGraph<V, E> extends SimpleDirectedWeightedGraph<V, E> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final AtomicLong version = new AtomicLong();
+
+	public VersionedGraph(Class<? extends E> edgeClass) {
+		super(edgeClass);
+	}
+
+	public VersionedGraph(EdgeFactory<V, E> edgeFactory) {
+		super(edgeFactory);
+	}
+
+	public long getVersion() {
+		return version.get();
+	}
+
+	@Override
+	public boolean addVertex(V v) {
+		boolean changed = super.addVertex(v);
+		if (changed) {
+			version.incrementAndGet();
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean removeVertex(V v) {
+		boolean changed = super.removeVertex(v);
+		if (changed) {
+			version.incrementAndGet();
+		}
+		return changed;
+	}
+
+	@Override
+	public E addEdge(V sourceVertex, V targetVertex) {
+		E edge = super.addEdge(sourceVertex, targetVertex);
+		if (edge != null) {
+			version.incrementAndGet();
+		}
+		return edge;
+	}
+
+	@Override
+	public boolean addEdge(V sourceVertex, V targetVertex, E e) {
+		boolean changed = super.addEdge(sourceVertex, targetVertex, e);
+		if (changed) {
+			version.incrementAndGet();
+		}
+		return changed;
+	}
+
+	@Override
+	public E removeEdge(V sourceVertex, V targetVertex) {
+		E edge = super.removeEdge(sourceVertex, targetVertex);
+		if (edge != null) {
+			version.incrementAndGet();
+		}
+		return edge;
+	}
+
+	@Override
+	public boolean removeEdge(E e) {
+		boolean changed = super.removeEdge(e);
+		if (changed) {
+			version.incrementAndGet();
+		}
+		return changed;
+	}
+
+	@Override
+	public void setEdgeWeight(E e, double weight) {
+		super.setEdgeWeight(e, weight);
+		version.incrementAndGet();
+	}
+}
@@ -57,6 +57,13 @@ public class BasicMap {
 
 	protected final GeometryFactory geomFact;
 
+	/**
+	 * The Delaunay triangulation of the sites, kept from setup.
+	 */
+	protected PointLocator pointLocator;
+
+	private SiteIndex siteIndex;
+
 	public BasicMap(Polygon boundary) {
 		this.boundary = boundary;
 		this.geomFact = boundary.getFactory();
@@ -92,6 +99,42 @@ public class BasicMap {
 		return Collections.unmodifiableSet(siteToSites.get(orig));
 	}
 
+	/**
+	 * @return the index of the sites, built with the map
+	 */
+	public SiteIndex getSiteIndex() {
+		return siteIndex;
+	}
+
+	public PointLocator getPointLocator() {
+		return pointLocator;
+	}
+
+	/**
+	 * @return the site whose region contains the point, or null if it is
+	 *         outside the boundary
+	 */
+	public Coordinate getSiteAt(Coordinate point) {
+		return pointLocator.getSiteAt(point);
+	}
+
+	/**
+	 * @return the region containing the point, or null if it is outside the
+	 *         boundary
+	 */
+	public Polygon getRegionAt(Coordinate point) {
+		Coordinate site = getSiteAt(point);
+		return site == null ? null : getRegionOfSite(site);
+	}
+
+	/**
+	 * @return the site whose region contains each point, or null for points
+	 *         outside the boundary
+	 */
+	public List<Coordinate> getSitesAt(List<Coordinate> points) {
+		return pointLocator.getSitesAt(points);
+	}
+
 	public Coordinate getSiteToSiteMidpoint(Coordinate orig, Coordinate dest) {
 		return siteToSiteMidpoints.get(ImmutableSet.of(orig, dest));
 	}
@@ -159,11 +202,25 @@ public class BasicMap {
 				siteToSiteMidpoints.put(ImmutableSet.of(orig, dest), midPoint);
 			}
 		}
+
+		pointLocator = PointLocator.build(qes, boundary);
+	}
+
+	/**
+	 * Builds the lookup structures over the finished map.
+	 */
+	protected void buildIndexes() {
+		siteIndex = createSiteIndex();
+	}
+
+	protected SiteIndex createSiteIndex() {
+		return SiteIndex.build(this);
 	}
 
 	public static BasicMap build(QuadEdgeSubdivision qes, Polygon boundary) {
 		BasicMap map = new BasicMap(boundary);
 		map.setup(qes);
+		map.buildIndexes();
 		return map;
 	}
 }
@@ -0,0 +1,72 @@
+package jape.map;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Reads and writes the int and double columns of the columnar file formats,
+ * {@link MapFile} and {@code jape.RoutingGraphFile}, at the position of a
+ * byte buffer and in its byte order. Each call moves the position past the
+ * column.
+ */
+public final class BinaryColumns {
+
+	private BinaryColumns() {
+	}
+
+	public static void putDoubles(ByteBuffer buffer, double[] values) {
+		buffer.asDoubleBuffer().put(values);
+		buffer.position(buffer.position() + values.length * Double.BYTES);
+	}
+
+	/**
+	 * Writes the values from index 0 to the limit, whatever their position.
+	 */
+	public static void putDoubles(ByteBuffer buffer, DoubleBuffer values) {
+		DoubleBuffer all = values.duplicate();
+		all.rewind();
+		buffer.asDoubleBuffer().put(all);
+		buffer.position(buffer.position() + values.limit() * Double.BYTES);
+	}
+
+	public static void putInts(ByteBuffer buffer, int[] values) {
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + values.length * Integer.BYTES);
+	}
+
+	/**
+	 * @return a copy of the next length doubles
+	 */
+	public static double[] getDoubles(ByteBuffer buffer, int length) {
+		double[] values = new double[length];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + length * Double.BYTES);
+		return values;
+	}
+
+	public static int[] getInts(ByteBuffer buffer, int length) {
+		int[] values = new int[length];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + length * Integer.BYTES);
+		return values;
+	}
+
+	/**
+	 * @return a view of the next length doubles, rather than a copy; it is
+	 *         read-only if the buffer is
+	 */
+	public static DoubleBuffer viewDoubles(ByteBuffer buffer, int length) {
+		ByteBuffer slice = buffer.slice().order(buffer.order());
+		slice.limit(length * Double.BYTES);
+		buffer.position(buffer.position() + length * Double.BYTES);
+		return slice.asDoubleBuffer();
+	}
+
+	public static IntBuffer viewInts(ByteBuffer buffer, int length) {
+		ByteBuffer slice = buffer.slice().order(buffer.order());
+		slice.limit(length * Integer.BYTES);
+		buffer.position(buffer.position() + length * Integer.BYTES);
+		return slice.asIntBuffer();
+	}
+}
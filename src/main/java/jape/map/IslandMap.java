@@ -11,7 +11,10 @@ import com.vividsolutions.jts.triangulate.quadedge.QuadEdgeSubdivision;
 
 public class IslandMap extends BasicMap {
 
-	private Map<Coordinate, Double> pointHeight = new HashMap<>();
+	/**
+	 * Height of each site and region corner, from -1.0 to 1.0.
+	 */
+	protected final Map<Coordinate, Double> pointHeight = new HashMap<>();
 
 	private final double heightPropScalingPower = 2.0;
 	private final double waterLevel = 0.0; // range -1.0 to 1.0
@@ -70,9 +73,15 @@ public class IslandMap extends BasicMap {
 	public static IslandMap build(QuadEdgeSubdivision qes, Polygon boundary) {
 		IslandMap map = new IslandMap(boundary);
 		map.setup(qes);
+		map.buildIndexes();
 		return map;
 	}
 
+	@Override
+	protected SiteIndex createSiteIndex() {
+		return SiteIndex.build(this);
+	}
+
 	public double getHeightOfSite(Coordinate site) {
 		return pointHeight.get(site);
 	}
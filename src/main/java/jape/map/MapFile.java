@@ -0,0 +1,441 @@
+package jape.map;
+
+import static jape.map.BinaryColumns.getDoubles;
+import static jape.map.BinaryColumns.getInts;
+import static jape.map.BinaryColumns.putDoubles;
+import static jape.map.BinaryColumns.putInts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Saves a {@link BasicMap} or {@link IslandMap} and loads it back without
+ * triangulating or evaluating noise again.
+ *
+ * The layout is columnar and little endian: a header of twelve ints (magic,
+ * version, kind, then the counts of sites, polygons, rings, polygon
+ * coordinates, links, midpoints, heights and triangles, and a reserved zero),
+ * followed by the double columns and then the int columns.
+ *
+ * <ul>
+ * <li>siteX, siteY: the sites, which are numbered in this order</li>
+ * <li>coordX, coordY: the coordinates of every ring of every polygon</li>
+ * <li>midpointX, midpointY: the midpoint between each pair of sites</li>
+ * <li>heightX, heightY, height: the point heights of an island map</li>
+ * <li>polygonFirstRing: polygon 0 is the boundary and polygon s + 1 is the
+ * region of site s; the first ring of a polygon is its shell</li>
+ * <li>ringFirstCoord: the coordinates of each ring</li>
+ * <li>linkFirst, linkTarget: the linked sites of each site, as offsets into
+ * linkTarget like {@code jape.CompactGraph}</li>
+ * <li>midpointSiteA, midpointSiteB: the pair of sites of each midpoint</li>
+ * <li>triangleSite: the three sites of each Delaunay triangle, for the
+ * {@link PointLocator}</li>
+ * </ul>
+ *
+ * Unlike {@code jape.RoutingGraphFile}, reading copies everything out of the
+ * file: the sites, polygons, link sets and midpoints are rebuilt as objects
+ * and the indexes built over them, so the mapping is dropped once read
+ * returns and each process holds its own copy of the map.
+ */
+public class MapFile {
+
+	private static final Logger log = LoggerFactory.getLogger(MapFile.class);
+
+	/**
+	 * "JAPM"
+	 */
+	private static final int MAGIC = 0x4A41504D;
+	public static final int VERSION = 2;
+	private static final int HEADER_BYTES = 12 * Integer.BYTES;
+
+	private static final int KIND_BASIC = 0;
+	private static final int KIND_ISLAND = 1;
+
+	private MapFile() {
+	}
+
+	/**
+	 * Writes to a temporary file beside the target and then moves it into
+	 * place, so processes reading the old file are not disturbed.
+	 */
+	public static void write(BasicMap map, Path file) throws IOException {
+		long startTime = System.nanoTime();
+		Columns columns = new Columns(map);
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, columns.getSize());
+			columns.put(buffer);
+			buffer.force();
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		log.info("Wrote " + map.sites.size() + " sites to " + file + " in "
+				+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+	}
+
+	public static void write(BasicMap map, OutputStream out) throws IOException {
+		Columns columns = new Columns(map);
+		ByteBuffer buffer = ByteBuffer.allocate((int) columns.getSize());
+		columns.put(buffer);
+		out.write(buffer.array());
+	}
+
+	/**
+	 * Maps the file read-only and copies the map out of it.
+	 *
+	 * @return an {@link IslandMap} if one was written, otherwise a
+	 *         {@link BasicMap}
+	 * @throws IOException
+	 *             if the file cannot be read, is not a map file of this
+	 *             version, or is truncated
+	 */
+	public static BasicMap read(Path file) throws IOException {
+		long startTime = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a map file");
+			BasicMap map = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+			log.info("Read " + map.sites.size() + " sites from " + file + " in "
+					+ ((System.nanoTime() - startTime) / 1000000) + "ms");
+			return map;
+		}
+	}
+
+	/**
+	 * Reads a map written by {@link #write(BasicMap, OutputStream)}, to the
+	 * end of the stream.
+	 */
+	public static BasicMap read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[65536];
+		int read;
+		while ((read = in.read(chunk)) >= 0) {
+			bytes.write(chunk, 0, read);
+		}
+		return read(ByteBuffer.wrap(bytes.toByteArray()), "stream");
+	}
+
+	/**
+	 * @throws IOException
+	 *             if the file holds a {@link BasicMap} only
+	 */
+	public static IslandMap readIslandMap(Path file) throws IOException {
+		BasicMap map = read(file);
+		if (!(map instanceof IslandMap))
+			throw new IOException(file + " does not hold an island map");
+		return (IslandMap) map;
+	}
+
+	private static BasicMap read(ByteBuffer buffer, String source) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC)
+			throw new IOException(source + " is not a map file");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException(source + " is version " + version + ", expected " + VERSION);
+		int kind = buffer.getInt();
+		int siteCount = buffer.getInt();
+		int polygonCount = buffer.getInt();
+		int ringCount = buffer.getInt();
+		int coordCount = buffer.getInt();
+		int linkCount = buffer.getInt();
+		int midpointCount = buffer.getInt();
+		int heightCount = buffer.getInt();
+		int triangleCount = buffer.getInt();
+		buffer.getInt();
+		if ((kind != KIND_BASIC && kind != KIND_ISLAND) || siteCount < 0 || polygonCount != siteCount + 1
+				|| ringCount < 0 || coordCount < 0 || linkCount < 0 || midpointCount < 0 || heightCount < 0
+				|| triangleCount < 0 || getSize(siteCount, ringCount, coordCount, linkCount, midpointCount,
+						heightCount, triangleCount) != buffer.limit())
+			throw new IOException(source + " is truncated or corrupt");
+
+		double[] siteX = getDoubles(buffer, siteCount);
+		double[] siteY = getDoubles(buffer, siteCount);
+		double[] coordX = getDoubles(buffer, coordCount);
+		double[] coordY = getDoubles(buffer, coordCount);
+		double[] midpointX = getDoubles(buffer, midpointCount);
+		double[] midpointY = getDoubles(buffer, midpointCount);
+		double[] heightX = getDoubles(buffer, heightCount);
+		double[] heightY = getDoubles(buffer, heightCount);
+		double[] height = getDoubles(buffer, heightCount);
+		int[] polygonFirstRing = getInts(buffer, polygonCount + 1);
+		int[] ringFirstCoord = getInts(buffer, ringCount + 1);
+		int[] linkFirst = getInts(buffer, siteCount + 1);
+		int[] linkTarget = getInts(buffer, linkCount);
+		int[] midpointSiteA = getInts(buffer, midpointCount);
+		int[] midpointSiteB = getInts(buffer, midpointCount);
+		int[] triangleSite = getInts(buffer, 3 * triangleCount);
+
+		GeometryFactory geomFact = new GeometryFactory();
+		Polygon boundary = createPolygon(geomFact, 0, polygonFirstRing, ringFirstCoord, coordX, coordY);
+		BasicMap map = kind == KIND_ISLAND ? new IslandMap(boundary) : new BasicMap(boundary);
+
+		Coordinate[] sites = new Coordinate[siteCount];
+		for (int s = 0; s < siteCount; s++) {
+			sites[s] = new Coordinate(siteX[s], siteY[s]);
+			Polygon region = createPolygon(geomFact, s + 1, polygonFirstRing, ringFirstCoord, coordX, coordY);
+			map.sites.add(sites[s]);
+			map.regions.add(region);
+			map.siteToRegion.put(sites[s], region);
+			map.regionToSite.put(region, sites[s]);
+		}
+		for (int s = 0; s < siteCount; s++) {
+			if (linkFirst[s] == linkFirst[s + 1]) {
+				continue;
+			}
+			Set<Coordinate> linked = new HashSet<>();
+			for (int link = linkFirst[s]; link < linkFirst[s + 1]; link++) {
+				linked.add(sites[linkTarget[link]]);
+			}
+			map.siteToSites.put(sites[s], linked);
+		}
+		for (int i = 0; i < midpointCount; i++) {
+			map.siteToSiteMidpoints.put(ImmutableSet.of(sites[midpointSiteA[i]], sites[midpointSiteB[i]]),
+					new Coordinate(midpointX[i], midpointY[i]));
+		}
+		if (kind == KIND_ISLAND) {
+			Map<Coordinate, Double> pointHeight = ((IslandMap) map).pointHeight;
+			for (int i = 0; i < heightCount; i++) {
+				pointHeight.put(new Coordinate(heightX[i], heightY[i]), height[i]);
+			}
+		}
+		map.pointLocator = new PointLocator(sites, triangleSite, boundary);
+		map.buildIndexes();
+		return map;
+	}
+
+	private static Polygon createPolygon(GeometryFactory geomFact, int polygon, int[] polygonFirstRing,
+			int[] ringFirstCoord, double[] coordX, double[] coordY) {
+		int firstRing = polygonFirstRing[polygon];
+		int ringEnd = polygonFirstRing[polygon + 1];
+		if (firstRing == ringEnd) {
+			return geomFact.createPolygon((LinearRing) null, null);
+		}
+		LinearRing shell = createRing(geomFact, firstRing, ringFirstCoord, coordX, coordY);
+		LinearRing[] holes = new LinearRing[ringEnd - firstRing - 1];
+		for (int ring = firstRing + 1; ring < ringEnd; ring++) {
+			holes[ring - firstRing - 1] = createRing(geomFact, ring, ringFirstCoord, coordX, coordY);
+		}
+		return geomFact.createPolygon(shell, holes);
+	}
+
+	private static LinearRing createRing(GeometryFactory geomFact, int ring, int[] ringFirstCoord, double[] coordX,
+			double[] coordY) {
+		Coordinate[] coords = new Coordinate[ringFirstCoord[ring + 1] - ringFirstCoord[ring]];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = new Coordinate(coordX[ringFirstCoord[ring] + i], coordY[ringFirstCoord[ring] + i]);
+		}
+		return geomFact.createLinearRing(coords);
+	}
+
+	private static long getSize(int siteCount, int ringCount, int coordCount, int linkCount, int midpointCount,
+			int heightCount, int triangleCount) {
+		long doubles = 2L * siteCount + 2L * coordCount + 2L * midpointCount + 3L * heightCount;
+		long ints = (siteCount + 2L) + (ringCount + 1L) + (siteCount + 1L) + linkCount + 2L * midpointCount
+				+ 3L * triangleCount;
+		return HEADER_BYTES + doubles * Double.BYTES + ints * Integer.BYTES;
+	}
+
+	/**
+	 * The columns of a map, ready to be written.
+	 */
+	private static class Columns {
+		private final int kind;
+		private final double[] siteX;
+		private final double[] siteY;
+		private final double[] coordX;
+		private final double[] coordY;
+		private final double[] midpointX;
+		private final double[] midpointY;
+		private final double[] heightX;
+		private final double[] heightY;
+		private final double[] height;
+		private final int[] polygonFirstRing;
+		private final int[] ringFirstCoord;
+		private final int[] linkFirst;
+		private final int[] linkTarget;
+		private final int[] midpointSiteA;
+		private final int[] midpointSiteB;
+		private final int[] triangleSite;
+		/**
+		 * Rings and coordinates added so far.
+		 */
+		private int ringCount = 0;
+		private int coordCount = 0;
+
+		private Columns(BasicMap map) {
+			kind = map instanceof IslandMap ? KIND_ISLAND : KIND_BASIC;
+			int siteCount = map.sites.size();
+			Map<Coordinate, Integer> index = new HashMap<>();
+			siteX = new double[siteCount];
+			siteY = new double[siteCount];
+			Polygon[] polygons = new Polygon[siteCount + 1];
+			polygons[0] = map.boundary;
+			for (Coordinate site : map.sites) {
+				int s = index.size();
+				index.put(site, s);
+				siteX[s] = site.x;
+				siteY[s] = site.y;
+				polygons[s + 1] = map.siteToRegion.get(site);
+			}
+
+			// count the rings and coordinates, then fill them in
+			int rings = 0;
+			int coords = 0;
+			for (Polygon polygon : polygons) {
+				if (!polygon.isEmpty()) {
+					rings += 1 + polygon.getNumInteriorRing();
+					coords += polygon.getNumPoints();
+				}
+			}
+			coordX = new double[coords];
+			coordY = new double[coords];
+			ringFirstCoord = new int[rings + 1];
+			polygonFirstRing = new int[siteCount + 2];
+			for (int polygon = 0; polygon < polygons.length; polygon++) {
+				addPolygon(polygons[polygon]);
+				polygonFirstRing[polygon + 1] = ringCount;
+			}
+			ringFirstCoord[ringCount] = coordCount;
+
+			linkFirst = new int[siteCount + 1];
+			for (Coordinate site : map.sites) {
+				Set<Coordinate> linked = map.siteToSites.get(site);
+				linkFirst[index.get(site) + 1] = linked == null ? 0 : linked.size();
+			}
+			for (int s = 0; s < siteCount; s++) {
+				linkFirst[s + 1] += linkFirst[s];
+			}
+			linkTarget = new int[linkFirst[siteCount]];
+			for (Coordinate site : map.sites) {
+				Set<Coordinate> linked = map.siteToSites.get(site);
+				if (linked != null) {
+					int link = linkFirst[index.get(site)];
+					for (Coordinate linkedSite : linked) {
+						linkTarget[link++] = index.get(linkedSite);
+					}
+				}
+			}
+
+			int midpointCount = map.siteToSiteMidpoints.size();
+			midpointX = new double[midpointCount];
+			midpointY = new double[midpointCount];
+			midpointSiteA = new int[midpointCount];
+			midpointSiteB = new int[midpointCount];
+			int i = 0;
+			for (Map.Entry<ImmutableSet<Coordinate>, Coordinate> entry : map.siteToSiteMidpoints.entrySet()) {
+				List<Coordinate> pair = entry.getKey().asList();
+				Integer siteA = index.get(pair.get(0));
+				Integer siteB = index.get(pair.get(pair.size() - 1));
+				if (siteA == null || siteB == null)
+					throw new IllegalArgumentException("midpoint between coordinates that are not sites");
+				midpointSiteA[i] = siteA;
+				midpointSiteB[i] = siteB;
+				midpointX[i] = entry.getValue().x;
+				midpointY[i] = entry.getValue().y;
+				i++;
+			}
+
+			Map<Coordinate, Double> pointHeight = kind == KIND_ISLAND ? ((IslandMap) map).pointHeight
+					: new HashMap<>();
+			heightX = new double[pointHeight.size()];
+			heightY = new double[pointHeight.size()];
+			height = new double[pointHeight.size()];
+			i = 0;
+			for (Map.Entry<Coordinate, Double> entry : pointHeight.entrySet()) {
+				heightX[i] = entry.getKey().x;
+				heightY[i] = entry.getKey().y;
+				height[i] = entry.getValue();
+				i++;
+			}
+
+			if (map.pointLocator == null) {
+				triangleSite = new int[0];
+			} else {
+				Coordinate[] locatorSites = map.pointLocator.getSites();
+				int[] locatorTriangles = map.pointLocator.getTriangleSites();
+				triangleSite = new int[locatorTriangles.length];
+				for (int corner = 0; corner < triangleSite.length; corner++) {
+					Integer site = index.get(locatorSites[locatorTriangles[corner]]);
+					if (site == null)
+						throw new IllegalArgumentException("triangle corner that is not a site");
+					triangleSite[corner] = site;
+				}
+			}
+
+			if (getSize() > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("map is too large for one file");
+		}
+
+		private void addPolygon(Polygon polygon) {
+			if (polygon.isEmpty()) {
+				return;
+			}
+			addRing(polygon.getExteriorRing().getCoordinates());
+			for (int ring = 0; ring < polygon.getNumInteriorRing(); ring++) {
+				addRing(polygon.getInteriorRingN(ring).getCoordinates());
+			}
+		}
+
+		private void addRing(Coordinate[] coords) {
+			ringFirstCoord[ringCount++] = coordCount;
+			for (Coordinate coord : coords) {
+				coordX[coordCount] = coord.x;
+				coordY[coordCount] = coord.y;
+				coordCount++;
+			}
+		}
+
+		private long getSize() {
+			return MapFile.getSize(siteX.length, ringFirstCoord.length - 1, coordX.length, linkTarget.length,
+					midpointX.length, height.length, triangleSite.length / 3);
+		}
+
+		private void put(ByteBuffer buffer) {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(siteX.length).putInt(siteX.length + 1)
+					.putInt(ringFirstCoord.length - 1).putInt(coordX.length).putInt(linkTarget.length)
+					.putInt(midpointX.length).putInt(height.length).putInt(triangleSite.length / 3).putInt(0);
+			putDoubles(buffer, siteX);
+			putDoubles(buffer, siteY);
+			putDoubles(buffer, coordX);
+			putDoubles(buffer, coordY);
+			putDoubles(buffer, midpointX);
+			putDoubles(buffer, midpointY);
+			putDoubles(buffer, heightX);
+			putDoubles(buffer, heightY);
+			putDoubles(buffer, height);
+			putInts(buffer, polygonFirstRing);
+			putInts(buffer, ringFirstCoord);
+			putInts(buffer, linkFirst);
+			putInts(buffer, linkTarget);
+			putInts(buffer, midpointSiteA);
+			putInts(buffer, midpointSiteB);
+			putInts(buffer, triangleSite);
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package jape.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.triangulate.quadedge.QuadEdgeSubdivision;
+import com.vividsolutions.jts.triangulate.quadedge.Vertex;
+
+/**
+ * Finds the site whose region contains a point, using the Delaunay
+ * triangulation of the sites kept as flat arrays.
+ *
+ * A query jumps to the closest of a sample of about n^1/3 triangles, then
+ * walks from triangle to neighbouring triangle towards the point until it
+ * reaches the one containing it (or the hull, if the point is outside the
+ * triangulation). The nearest site, which is the one whose region holds the
+ * point, is then found by stepping from the closest corner of that
+ * triangle to any nearer Delaunay neighbour until none is nearer. Expected
+ * cost is about O(n^1/3).
+ *
+ * Immutable, so any number of threads may query it at once.
+ */
+public class PointLocator {
+
+	private final Coordinate[] sites;
+	private final double[] x;
+	private final double[] y;
+	/**
+	 * The sites of each triangle, anticlockwise: [triangle * 3 + corner]
+	 */
+	private final int[] triangleSite;
+	/**
+	 * The triangle across the edge opposite each corner, or -1 on the hull.
+	 */
+	private final int[] triangleNeighbour;
+	/**
+	 * Delaunay neighbours of each site, as offsets into neighbourSite.
+	 */
+	private final int[] firstNeighbour;
+	private final int[] neighbourSite;
+	/**
+	 * Triangles sampled to choose where a walk starts.
+	 */
+	private final int[] jumpTriangles;
+
+	private final PreparedGeometry preparedBoundary;
+	private final GeometryFactory geomFact;
+
+	/**
+	 * @param triangleSite
+	 *            three site numbers per triangle, in either orientation
+	 */
+	public PointLocator(Coordinate[] sites, int[] triangleSite, Polygon boundary) {
+		if (triangleSite.length % 3 != 0)
+			throw new IllegalArgumentException("triangleSite must have three entries per triangle");
+		this.sites = sites;
+		this.geomFact = boundary.getFactory();
+		this.preparedBoundary = PreparedGeometryFactory.prepare(boundary);
+		int n = sites.length;
+		x = new double[n];
+		y = new double[n];
+		for (int s = 0; s < n; s++) {
+			x[s] = sites[s].x;
+			y[s] = sites[s].y;
+		}
+
+		this.triangleSite = triangleSite.clone();
+		int triangles = triangleSite.length / 3;
+		for (int t = 0; t < triangles; t++) {
+			int a = this.triangleSite[3 * t];
+			int b = this.triangleSite[3 * t + 1];
+			int c = this.triangleSite[3 * t + 2];
+			if (a < 0 || a >= n || b < 0 || b >= n || c < 0 || c >= n)
+				throw new IllegalArgumentException("triangleSite must hold site numbers");
+			if (orient(a, b, x[c], y[c]) < 0.0) {
+				this.triangleSite[3 * t + 1] = c;
+				this.triangleSite[3 * t + 2] = b;
+			}
+		}
+
+		// match each directed edge to its reverse in the neighbouring
+		// triangle
+		Map<Long, Integer> edgeCorner = new HashMap<>();
+		for (int corner = 0; corner < this.triangleSite.length; corner++) {
+			edgeCorner.put(getEdgeKey(getEdgeStart(corner), getEdgeEnd(corner)), corner);
+		}
+		triangleNeighbour = new int[this.triangleSite.length];
+		int[] neighbourCount = new int[n + 1];
+		for (int corner = 0; corner < this.triangleSite.length; corner++) {
+			Integer twin = edgeCorner.get(getEdgeKey(getEdgeEnd(corner), getEdgeStart(corner)));
+			triangleNeighbour[corner] = twin == null ? -1 : twin / 3;
+			neighbourCount[getEdgeStart(corner) + 1]++;
+			if (twin == null) {
+				// hull edges appear once, so link the other way here
+				neighbourCount[getEdgeEnd(corner) + 1]++;
+			}
+		}
+		firstNeighbour = neighbourCount;
+		for (int s = 0; s < n; s++) {
+			firstNeighbour[s + 1] += firstNeighbour[s];
+		}
+		neighbourSite = new int[firstNeighbour[n]];
+		int[] next = Arrays.copyOf(firstNeighbour, n);
+		for (int corner = 0; corner < this.triangleSite.length; corner++) {
+			neighbourSite[next[getEdgeStart(corner)]++] = getEdgeEnd(corner);
+			if (triangleNeighbour[corner] < 0) {
+				neighbourSite[next[getEdgeEnd(corner)]++] = getEdgeStart(corner);
+			}
+		}
+
+		int samples = Math.max(1, (int) Math.cbrt(triangles));
+		jumpTriangles = new int[triangles == 0 ? 0 : samples];
+		for (int i = 0; i < jumpTriangles.length; i++) {
+			jumpTriangles[i] = (int) ((long) i * triangles / jumpTriangles.length);
+		}
+	}
+
+	/**
+	 * Copies the triangles out of the subdivision.
+	 */
+	public static PointLocator build(QuadEdgeSubdivision qes, Polygon boundary) {
+		List<Coordinate> sites = new ArrayList<>();
+		Map<Coordinate, Integer> index = new HashMap<>();
+		@SuppressWarnings("unchecked")
+		Collection<Vertex> vertices = qes.getVertices(false);
+		for (Vertex vertex : vertices) {
+			Coordinate site = new Coordinate(vertex.getX(), vertex.getY());
+			if (!index.containsKey(site)) {
+				index.put(site, sites.size());
+				sites.add(site);
+			}
+		}
+		@SuppressWarnings("unchecked")
+		List<Vertex[]> triangles = qes.getTriangleVertices(false);
+		int[] triangleSite = new int[triangles.size() * 3];
+		int corner = 0;
+		for (Vertex[] triangle : triangles) {
+			for (Vertex vertex : triangle) {
+				triangleSite[corner++] = index.get(new Coordinate(vertex.getX(), vertex.getY()));
+			}
+		}
+		return new PointLocator(sites.toArray(new Coordinate[sites.size()]), triangleSite, boundary);
+	}
+
+	public int getTriangleCount() {
+		return triangleSite.length / 3;
+	}
+
+	Coordinate[] getSites() {
+		return sites;
+	}
+
+	int[] getTriangleSites() {
+		return triangleSite;
+	}
+
+	/**
+	 * @return the site whose region contains the point, or null if the
+	 *         point is outside the boundary
+	 */
+	public Coordinate getSiteAt(Coordinate point) {
+		if (!isInBoundary(point)) {
+			return null;
+		}
+		return sites[getNearestSite(point, jump(point))];
+	}
+
+	/**
+	 * As {@link #getSiteAt(Coordinate)} for many points. The points are
+	 * visited in Z-order, each walk starting from the triangle the last one
+	 * ended in, so nearby points cost little more than one.
+	 *
+	 * @return the site for each point, in the order given
+	 */
+	public List<Coordinate> getSitesAt(List<Coordinate> points) {
+		Coordinate[] located = new Coordinate[points.size()];
+		Integer[] order = new Integer[points.size()];
+		final long[] zOrder = new long[points.size()];
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Coordinate point : points) {
+			minX = Math.min(minX, point.x);
+			minY = Math.min(minY, point.y);
+			maxX = Math.max(maxX, point.x);
+			maxY = Math.max(maxY, point.y);
+		}
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			zOrder[i] = getZOrder(scale(points.get(i).x, minX, maxX), scale(points.get(i).y, minY, maxY));
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(zOrder[a], zOrder[b]));
+
+		int triangle = -1;
+		for (int i : order) {
+			Coordinate point = points.get(i);
+			if (!isInBoundary(point)) {
+				continue;
+			}
+			triangle = triangle < 0 ? jump(point) : walk(triangle, point);
+			located[i] = sites[getNearestSite(point, triangle)];
+		}
+		return Arrays.asList(located);
+	}
+
+	private boolean isInBoundary(Coordinate point) {
+		return sites.length > 0 && preparedBoundary.covers(geomFact.createPoint(point));
+	}
+
+	/**
+	 * @return the triangle the walk ended in, or -1 if there are none
+	 */
+	private int jump(Coordinate point) {
+		if (jumpTriangles.length == 0) {
+			return -1;
+		}
+		int start = jumpTriangles[0];
+		double startDistance = Double.POSITIVE_INFINITY;
+		for (int triangle : jumpTriangles) {
+			int site = triangleSite[3 * triangle];
+			double dx = x[site] - point.x;
+			double dy = y[site] - point.y;
+			double distance = dx * dx + dy * dy;
+			if (distance < startDistance) {
+				start = triangle;
+				startDistance = distance;
+			}
+		}
+		return walk(start, point);
+	}
+
+	/**
+	 * Steps across any edge the point is on the far side of, until the
+	 * point is inside the triangle or beyond a hull edge.
+	 */
+	private int walk(int triangle, Coordinate point) {
+		if (triangle < 0) {
+			return -1;
+		}
+		int limit = getTriangleCount();
+		for (int step = 0; step < limit; step++) {
+			int next = -1;
+			for (int i = 0; i < 3; i++) {
+				// start with a different edge each step, so a walk cannot
+				// cycle on points lying on an edge
+				int corner = 3 * triangle + (i + step) % 3;
+				if (orient(getEdgeStart(corner), getEdgeEnd(corner), point.x, point.y) < 0.0) {
+					next = triangleNeighbour[corner];
+					if (next >= 0) {
+						break;
+					}
+				}
+			}
+			if (next < 0) {
+				return triangle;
+			}
+			triangle = next;
+		}
+		return triangle;
+	}
+
+	/**
+	 * Starts from the closest corner of the triangle, or from the first site
+	 * if there are no triangles.
+	 */
+	private int getNearestSite(Coordinate point, int triangle) {
+		int nearest = 0;
+		if (triangle >= 0) {
+			nearest = triangleSite[3 * triangle];
+			for (int i = 1; i < 3; i++) {
+				if (getDistance(triangleSite[3 * triangle + i], point) < getDistance(nearest, point)) {
+					nearest = triangleSite[3 * triangle + i];
+				}
+			}
+		} else {
+			// fewer than three sites
+			for (int s = 1; s < sites.length; s++) {
+				if (getDistance(s, point) < getDistance(nearest, point)) {
+					nearest = s;
+				}
+			}
+			return nearest;
+		}
+		// greedy steps over the Delaunay graph always reach the nearest site
+		double nearestDistance = getDistance(nearest, point);
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int i = firstNeighbour[nearest]; i < firstNeighbour[nearest + 1]; i++) {
+				double distance = getDistance(neighbourSite[i], point);
+				if (distance < nearestDistance) {
+					nearest = neighbourSite[i];
+					nearestDistance = distance;
+					improved = true;
+					break;
+				}
+			}
+		}
+		return nearest;
+	}
+
+	private double getDistance(int site, Coordinate point) {
+		double dx = x[site] - point.x;
+		double dy = y[site] - point.y;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * The edge opposite a corner runs from the next corner to the one after.
+	 */
+	private int getEdgeStart(int corner) {
+		return triangleSite[corner - corner % 3 + (corner + 1) % 3];
+	}
+
+	private int getEdgeEnd(int corner) {
+		return triangleSite[corner - corner % 3 + (corner + 2) % 3];
+	}
+
+	/**
+	 * @return positive if the point is to the left of the edge from site a
+	 *         to site b
+	 */
+	private double orient(int a, int b, double px, double py) {
+		return (x[b] - x[a]) * (py - y[a]) - (y[b] - y[a]) * (px - x[a]);
+	}
+
+	private static long getEdgeKey(int start, int end) {
+		return ((long) start << 32) | (end & 0xffffffffL);
+	}
+
+	private static int scale(double value, double min, double max) {
+		return max > min ? (int) ((value - min) / (max - min) * 65535.0) : 0;
+	}
+
+	/**
+	 * Interleaves the bits of two 16 bit values.
+	 */
+	private static long getZOrder(int column, int row) {
+		long z = 0;
+		for (int bit = 0; bit < 16; bit++) {
+			z |= ((long) (column >> bit) & 1L) << (2 * bit);
+			z |= ((long) (row >> bit) & 1L) << (2 * bit + 1);
+		}
+		return z;
+	}
+}
@@ -0,0 +1,302 @@
+package jape.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * Uniform grid over the sites of a map, for finding the sites nearest a
+ * point without looking at every one.
+ *
+ * The sites are sorted by cell, and their coordinates held in arrays in
+ * that order, so the sites of a cell are adjacent in memory. There are
+ * about two sites per cell. Immutable, so any number of threads may query
+ * it at once.
+ */
+public class SiteIndex {
+
+	private static final double SITES_PER_CELL = 2.0;
+
+	private final Coordinate[] sites;
+	private final double[] x;
+	private final double[] y;
+	/**
+	 * Null if every site counts as land.
+	 */
+	private final boolean[] land;
+
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	/**
+	 * Offset of the first site of each cell, row by row, with one extra
+	 * entry at the end.
+	 */
+	private final int[] cellStart;
+
+	/**
+	 * @param isLand
+	 *            true for each site that is land, in the order of sites, or
+	 *            null if they all are
+	 */
+	public SiteIndex(Collection<Coordinate> sites, boolean[] isLand) {
+		if (isLand != null && isLand.length != sites.size())
+			throw new IllegalArgumentException("isLand must have one entry per site");
+		int n = sites.size();
+		Coordinate[] unsorted = sites.toArray(new Coordinate[n]);
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double lowX = Double.POSITIVE_INFINITY;
+		double lowY = Double.POSITIVE_INFINITY;
+		for (Coordinate site : unsorted) {
+			lowX = Math.min(lowX, site.x);
+			lowY = Math.min(lowY, site.y);
+			maxX = Math.max(maxX, site.x);
+			maxY = Math.max(maxY, site.y);
+		}
+		if (n == 0) {
+			lowX = lowY = maxX = maxY = 0.0;
+		}
+		minX = lowX;
+		minY = lowY;
+		double width = Math.max(maxX - minX, Double.MIN_NORMAL);
+		double height = Math.max(maxY - minY, Double.MIN_NORMAL);
+		double size = Math.sqrt(width * height * SITES_PER_CELL / Math.max(n, 1));
+		// keep the grid to about one cell per site even if the sites lie on
+		// a line
+		size = Math.max(size, Math.max(width, height) / Math.max(n, 1));
+		cellSize = size;
+		columns = (int) (width / cellSize) + 1;
+		rows = (int) (height / cellSize) + 1;
+
+		// counting sort of the sites by cell
+		int[] cellOf = new int[n];
+		cellStart = new int[columns * rows + 1];
+		for (int i = 0; i < n; i++) {
+			cellOf[i] = getRow(unsorted[i].y) * columns + getColumn(unsorted[i].x);
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int cell = 0; cell < columns * rows; cell++) {
+			cellStart[cell + 1] += cellStart[cell];
+		}
+		int[] next = Arrays.copyOf(cellStart, columns * rows);
+		this.sites = new Coordinate[n];
+		x = new double[n];
+		y = new double[n];
+		land = isLand == null ? null : new boolean[n];
+		for (int i = 0; i < n; i++) {
+			int j = next[cellOf[i]]++;
+			this.sites[j] = unsorted[i];
+			x[j] = unsorted[i].x;
+			y[j] = unsorted[i].y;
+			if (land != null) {
+				land[j] = isLand[i];
+			}
+		}
+	}
+
+	/**
+	 * Indexes every site of the map as land.
+	 */
+	public static SiteIndex build(BasicMap map) {
+		return new SiteIndex(map.getSites(), null);
+	}
+
+	/**
+	 * Indexes the sites of the map, with those under water marked.
+	 */
+	public static SiteIndex build(IslandMap map) {
+		List<Coordinate> sites = new ArrayList<>(map.getSites());
+		boolean[] isLand = new boolean[sites.size()];
+		for (int i = 0; i < isLand.length; i++) {
+			isLand[i] = !map.getIsSiteUnderwater(sites.get(i));
+		}
+		return new SiteIndex(sites, isLand);
+	}
+
+	public int size() {
+		return sites.length;
+	}
+
+	private int getColumn(double px) {
+		return Math.max(0, Math.min(columns - 1, (int) ((px - minX) / cellSize)));
+	}
+
+	private int getRow(double py) {
+		return Math.max(0, Math.min(rows - 1, (int) ((py - minY) / cellSize)));
+	}
+
+	private boolean isIncluded(int site, boolean landOnly) {
+		return !landOnly || land == null || land[site];
+	}
+
+	public Coordinate getNearest(Coordinate point) {
+		return getNearest(point, false);
+	}
+
+	/**
+	 * @param landOnly
+	 *            ignore sites under water
+	 * @return the nearest site, or null if there is none
+	 */
+	public Coordinate getNearest(Coordinate point, boolean landOnly) {
+		List<Coordinate> nearest = getNearest(point, 1, landOnly);
+		return nearest.isEmpty() ? null : nearest.get(0);
+	}
+
+	/**
+	 * Searches the cells in rings of growing size around the point until
+	 * no cell left could hold a nearer site.
+	 *
+	 * @return up to k sites, nearest first
+	 */
+	public List<Coordinate> getNearest(Coordinate point, int k, boolean landOnly) {
+		if (k < 1)
+			throw new IllegalArgumentException("k must be at least 1");
+		if (sites.length == 0) {
+			return new ArrayList<>();
+		}
+		// the nearest found so far, as a max heap on distance
+		int[] heap = new int[Math.min(k, sites.length)];
+		double[] heapDistance = new double[heap.length];
+		int found = 0;
+
+		int column = getColumn(point.x);
+		int row = getRow(point.y);
+		for (int ring = 0;; ring++) {
+			int left = column - ring;
+			int right = column + ring;
+			int bottom = row - ring;
+			int top = row + ring;
+			for (int r = Math.max(0, bottom); r <= Math.min(rows - 1, top); r++) {
+				boolean edgeRow = r == bottom || r == top;
+				// only the cells on the ring itself; the inner ones are done
+				int step = edgeRow ? 1 : right - left;
+				for (int c = left; c <= right; c += step) {
+					if (c < 0 || c >= columns) {
+						continue;
+					}
+					int cell = r * columns + c;
+					for (int site = cellStart[cell]; site < cellStart[cell + 1]; site++) {
+						if (!isIncluded(site, landOnly)) {
+							continue;
+						}
+						double dx = x[site] - point.x;
+						double dy = y[site] - point.y;
+						double distance = dx * dx + dy * dy;
+						if (found < heap.length) {
+							heap[found] = site;
+							heapDistance[found] = distance;
+							siftUp(heap, heapDistance, found);
+							found++;
+						} else if (distance < heapDistance[0]) {
+							heap[0] = site;
+							heapDistance[0] = distance;
+							siftDown(heap, heapDistance, found);
+						}
+					}
+				}
+			}
+
+			// the nearest any cell outside this ring could be
+			double outside = Double.POSITIVE_INFINITY;
+			if (left > 0) {
+				outside = Math.min(outside, Math.max(0.0, point.x - (minX + left * cellSize)));
+			}
+			if (right < columns - 1) {
+				outside = Math.min(outside, Math.max(0.0, minX + (right + 1) * cellSize - point.x));
+			}
+			if (bottom > 0) {
+				outside = Math.min(outside, Math.max(0.0, point.y - (minY + bottom * cellSize)));
+			}
+			if (top < rows - 1) {
+				outside = Math.min(outside, Math.max(0.0, minY + (top + 1) * cellSize - point.y));
+			}
+			if (outside == Double.POSITIVE_INFINITY
+					|| (found == heap.length && heapDistance[0] <= outside * outside)) {
+				break;
+			}
+		}
+
+		Coordinate[] nearest = new Coordinate[found];
+		for (int i = found - 1; i >= 0; i--) {
+			nearest[i] = sites[heap[0]];
+			heap[0] = heap[i];
+			heapDistance[0] = heapDistance[i];
+			siftDown(heap, heapDistance, i);
+		}
+		return Arrays.asList(nearest);
+	}
+
+	/**
+	 * @return the sites no further than radius from the point, in no
+	 *         particular order
+	 */
+	public List<Coordinate> getWithin(Coordinate point, double radius, boolean landOnly) {
+		List<Coordinate> within = new ArrayList<>();
+		if (!(radius >= 0.0)) {
+			return within;
+		}
+		double radiusSquared = radius * radius;
+		int firstColumn = getColumn(point.x - radius);
+		int lastColumn = getColumn(point.x + radius);
+		int firstRow = getRow(point.y - radius);
+		int lastRow = getRow(point.y + radius);
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				for (int site = cellStart[cell]; site < cellStart[cell + 1]; site++) {
+					double dx = x[site] - point.x;
+					double dy = y[site] - point.y;
+					if (dx * dx + dy * dy <= radiusSquared && isIncluded(site, landOnly)) {
+						within.add(sites[site]);
+					}
+				}
+			}
+		}
+		return within;
+	}
+
+	private static void siftUp(int[] heap, double[] distance, int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (distance[parent] >= distance[i]) {
+				return;
+			}
+			swap(heap, distance, i, parent);
+			i = parent;
+		}
+	}
+
+	private static void siftDown(int[] heap, double[] distance, int size) {
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && distance[child + 1] > distance[child]) {
+				child++;
+			}
+			if (distance[i] >= distance[child]) {
+				return;
+			}
+			swap(heap, distance, i, child);
+			i = child;
+		}
+	}
+
+	private static void swap(int[] heap, double[] distance, int i, int j) {
+		int site = heap[i];
+		heap[i] = heap[j];
+		heap[j] = site;
+		double d = distance[i];
+		distance[i] = distance[j];
+		distance[j] = d;
+	}
+}
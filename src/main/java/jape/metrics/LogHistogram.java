@@ -0,0 +1,113 @@
+package jape.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative longs with buckets that grow with the value, so
+ * a few hundred buckets cover the whole range at about 12% resolution.
+ * Recording is lock free and safe from several threads.
+ *
+ * Values below 8 get a bucket each; above that, each power of two is split
+ * into 8 equal buckets.
+ */
+public class LogHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+
+	public void record(long value) {
+		if (value < 0)
+			throw new IllegalArgumentException("value cannot be negative");
+		counts.incrementAndGet(getBucket(value));
+		count.increment();
+		sum.add(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0.0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * @param percentile
+	 *            from 0 to 100
+	 * @return the upper end of the bucket the value at the percentile fell
+	 *         in, or 0 if nothing has been recorded
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0.0 || percentile > 100.0)
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return getBucketUpperBound(i);
+			}
+		}
+		return getBucketUpperBound(BUCKETS - 1);
+	}
+
+	/**
+	 * @return the upper end of the highest bucket anything fell in
+	 */
+	public long getMax() {
+		for (int i = BUCKETS - 1; i >= 0; i--) {
+			if (counts.get(i) > 0) {
+				return getBucketUpperBound(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Forgets everything recorded. Values recorded at the same time may be
+	 * partly lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+	}
+
+	static int getBucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long getBucketUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lower = (SUB_BUCKETS + subBucket) << shift;
+		return lower + ((1L << shift) - 1);
+	}
+}
@@ -0,0 +1,184 @@
+package jape.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jape.SearchListener;
+import jape.SearchStatistics;
+import jape.SearchStatus;
+
+/**
+ * Search listener that aggregates the statistics of every search into
+ * latency and expansion histograms and running totals. Can be registered
+ * as an MBean to read them from JMX.
+ *
+ * The same instance can listen to several searches on several threads.
+ */
+public class SearchMetrics implements SearchListener<Object>, SearchMetricsMBean {
+
+	private final LogHistogram latency = new LogHistogram();
+	private final LogHistogram expanded = new LogHistogram();
+	private final LongAdder found = new LongAdder();
+	private final LongAdder stopped = new LongAdder();
+	private final LongAdder reopened = new LongAdder();
+	private final LongAdder edgesRelaxed = new LongAdder();
+	private final LongAdder heuristicCalls = new LongAdder();
+	private final LongAccumulator peakOpenSize = new LongAccumulator(Math::max, 0);
+
+	private ObjectName objectName = null;
+
+	@Override
+	public void searchFinished(Object start, Object goal, SearchStatistics statistics) {
+		latency.record(statistics.getElapsedNanos());
+		expanded.record(statistics.getExpanded());
+		if (statistics.isFound()) {
+			found.increment();
+		}
+		if (statistics.getStatus() != SearchStatus.COMPLETED) {
+			stopped.increment();
+		}
+		reopened.add(statistics.getReopened());
+		edgesRelaxed.add(statistics.getEdgesRelaxed());
+		heuristicCalls.add(statistics.getHeuristicCalls());
+		peakOpenSize.accumulate(statistics.getPeakOpenSize());
+	}
+
+	public LogHistogram getLatencyHistogram() {
+		return latency;
+	}
+
+	public LogHistogram getExpandedHistogram() {
+		return expanded;
+	}
+
+	/**
+	 * Registers with the platform MBean server as
+	 * jape:type=SearchMetrics,name=<i>name</i>.
+	 */
+	public synchronized void register(String name) {
+		if (objectName != null)
+			throw new IllegalStateException("already registered as " + objectName);
+		try {
+			ObjectName newName = new ObjectName("jape:type=SearchMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+			objectName = newName;
+		} catch (JMException e) {
+			throw new IllegalStateException("could not register search metrics", e);
+		}
+	}
+
+	public synchronized void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.unregisterMBean(objectName);
+			objectName = null;
+		} catch (JMException e) {
+			throw new IllegalStateException("could not unregister search metrics", e);
+		}
+	}
+
+	@Override
+	public long getQueryCount() {
+		return latency.getCount();
+	}
+
+	@Override
+	public long getFoundCount() {
+		return found.sum();
+	}
+
+	@Override
+	public long getStoppedCount() {
+		return stopped.sum();
+	}
+
+	@Override
+	public double getLatencyMeanNanos() {
+		return latency.getMean();
+	}
+
+	@Override
+	public long getLatencyP50Nanos() {
+		return latency.getPercentile(50.0);
+	}
+
+	@Override
+	public long getLatencyP90Nanos() {
+		return latency.getPercentile(90.0);
+	}
+
+	@Override
+	public long getLatencyP99Nanos() {
+		return latency.getPercentile(99.0);
+	}
+
+	@Override
+	public long getLatencyMaxNanos() {
+		return latency.getMax();
+	}
+
+	@Override
+	public double getExpandedMean() {
+		return expanded.getMean();
+	}
+
+	@Override
+	public long getExpandedP50() {
+		return expanded.getPercentile(50.0);
+	}
+
+	@Override
+	public long getExpandedP90() {
+		return expanded.getPercentile(90.0);
+	}
+
+	@Override
+	public long getExpandedP99() {
+		return expanded.getPercentile(99.0);
+	}
+
+	@Override
+	public long getExpandedMax() {
+		return expanded.getMax();
+	}
+
+	@Override
+	public long getReopenedTotal() {
+		return reopened.sum();
+	}
+
+	@Override
+	public long getEdgesRelaxedTotal() {
+		return edgesRelaxed.sum();
+	}
+
+	@Override
+	public long getHeuristicCallsTotal() {
+		return heuristicCalls.sum();
+	}
+
+	@Override
+	public long getPeakOpenSizeMax() {
+		return peakOpenSize.get();
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		expanded.reset();
+		found.reset();
+		stopped.reset();
+		reopened.reset();
+		edgesRelaxed.reset();
+		heuristicCalls.reset();
+		peakOpenSize.reset();
+	}
+}
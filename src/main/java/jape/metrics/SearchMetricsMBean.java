@@ -0,0 +1,43 @@
+package jape.metrics;
+
+/**
+ * JMX view of {@link SearchMetrics}. Times are in nanoseconds.
+ */
+public interface SearchMetricsMBean {
+
+	public long getQueryCount();
+
+	public long getFoundCount();
+
+	public long getStoppedCount();
+
+	public double getLatencyMeanNanos();
+
+	public long getLatencyP50Nanos();
+
+	public long getLatencyP90Nanos();
+
+	public long getLatencyP99Nanos();
+
+	public long getLatencyMaxNanos();
+
+	public double getExpandedMean();
+
+	public long getExpandedP50();
+
+	public long getExpandedP90();
+
+	public long getExpandedP99();
+
+	public long getExpandedMax();
+
+	public long getReopenedTotal();
+
+	public long getEdgesRelaxedTotal();
+
+	public long getHeuristicCallsTotal();
+
+	public long getPeakOpenSizeMax();
+
+	public void reset();
+}
@@ -0,0 +1,78 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class AStarBuilderTest {
+
+	@Test
+	public void searchNearestFindsCheapestGoal() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		List<Coordinate> vertices = TestMaps.getVertices();
+		Random rng = new Random(51);
+		for (int i = 0; i < 50; i++) {
+			Coordinate start = vertices.get(rng.nextInt(vertices.size()));
+			List<Coordinate> goals = new ArrayList<>();
+			for (int j = 0; j < 10; j++) {
+				goals.add(vertices.get(rng.nextInt(vertices.size())));
+			}
+			double cheapest = Double.POSITIVE_INFINITY;
+			for (Coordinate goal : goals) {
+				cheapest = Math.min(cheapest, aStarBuilder.search(start, goal).getCost());
+			}
+
+			PathResult<Coordinate> result = aStarBuilder.searchNearest(start, goals);
+			if (cheapest == Double.POSITIVE_INFINITY) {
+				assertNull(result.getPath());
+				continue;
+			}
+			assertTrue(goals.contains(result.getGoal()));
+			assertEquals(start, result.getPath().get(result.getPath().size() - 1));
+			assertEquals(cheapest, result.getCost(), TestMaps.COST_TOLERANCE);
+			assertEquals(cheapest, TestMaps.getCost(graph, result.getPath()), TestMaps.COST_TOLERANCE);
+		}
+	}
+
+	@Test
+	public void searchNearestSkipsUnreachableGoals() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		ComponentLabels<Coordinate> labels = ComponentLabels.build(graph);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		aStarBuilder.setComponentLabels(labels);
+		Coordinate start = labels.getGraph().getVertex(0);
+		List<Coordinate> unreachable = new ArrayList<>();
+		for (int v = 1; v < labels.getGraph().getVertexCount(); v++) {
+			if (!labels.mayReach(0, v)) {
+				unreachable.add(labels.getGraph().getVertex(v));
+			}
+		}
+		assertFalse(unreachable.isEmpty());
+		PathResult<Coordinate> result = aStarBuilder.searchNearest(start, unreachable);
+		assertNull(result.getPath());
+		assertEquals(0, result.getExpanded());
+	}
+
+	@Test
+	public void searchNearestWithStartAmongGoals() {
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		List<Coordinate> vertices = TestMaps.getVertices();
+		PathResult<Coordinate> result = aStarBuilder.searchNearest(vertices.get(3), vertices.subList(0, 10));
+		assertEquals(Collections.singletonList(vertices.get(3)), result.getPath());
+		assertEquals(0.0, result.getCost(), 0.0);
+	}
+}
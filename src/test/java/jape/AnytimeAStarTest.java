@@ -0,0 +1,68 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class AnytimeAStarTest {
+
+	@Test
+	public void withoutInflationFindsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AnytimeAStar<Coordinate, DefaultWeightedEdge> anytime = new AnytimeAStar<>(graph, TestMaps.EUCLIDEAN, 1.0,
+				0.5, OpenListStrategy.BINARY_HEAP);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 10)) {
+			PathResult<Coordinate> result = anytime.search(query.getStart(), query.getGoal(), Long.MAX_VALUE,
+					Integer.MAX_VALUE);
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					result.getPath());
+			assertEquals(SearchStatus.COMPLETED, result.getStatus());
+		}
+	}
+
+	@Test
+	public void withUnlimitedBudgetEndsOptimal() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AnytimeAStar<Coordinate, DefaultWeightedEdge> anytime = new AnytimeAStar<>(graph, TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 11)) {
+			PathResult<Coordinate> result = anytime.search(query.getStart(), query.getGoal(), Long.MAX_VALUE,
+					Integer.MAX_VALUE);
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					result.getPath());
+			if (result.isFound()) {
+				assertEquals(1.0, result.getSuboptimalityBound(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void pathWithinBudgetKeepsItsBound() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AnytimeAStar<Coordinate, DefaultWeightedEdge> anytime = new AnytimeAStar<>(graph, TestMaps.EUCLIDEAN);
+		int found = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 12)) {
+			PathResult<Coordinate> result = anytime.search(query.getStart(), query.getGoal(), Long.MAX_VALUE, 40);
+			if (!result.isFound()) {
+				continue;
+			}
+			double optimal = reference.search(query.getStart(), query.getGoal()).getCost();
+			assertEquals(result.getCost(), TestMaps.getCost(graph, result.getPath()), TestMaps.COST_TOLERANCE);
+			assertTrue(result.getCost() <= optimal * result.getSuboptimalityBound() + TestMaps.COST_TOLERANCE);
+			found++;
+		}
+		assertTrue(found > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInflationBelowOne() {
+		new AnytimeAStar<>(TestMaps.getGraph(), TestMaps.EUCLIDEAN, 0.5, 0.5, OpenListStrategy.BINARY_HEAP);
+	}
+}
@@ -0,0 +1,115 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class AsyncPathFinderTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() throws Exception {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AsyncPathFinder<Coordinate, DefaultWeightedEdge> finder = AsyncPathFinder.withThreadPool(aStarBuilder, 4,
+				1000);
+		try {
+			List<PathQuery<Coordinate>> queries = TestMaps.getQueries(200, 16);
+			List<CompletableFuture<PathResult<Coordinate>>> futures = new ArrayList<>();
+			for (PathQuery<Coordinate> query : queries) {
+				futures.add(finder.search(query.getStart(), query.getGoal()));
+			}
+			for (int i = 0; i < queries.size(); i++) {
+				PathQuery<Coordinate> query = queries.get(i);
+				TestMaps.assertSameCost(graph, query, aStarBuilder.search(query.getStart(), query.getGoal()),
+						futures.get(i).get(10, TimeUnit.SECONDS).getPath());
+			}
+		} finally {
+			finder.shutdown();
+		}
+	}
+
+	@Test
+	public void cancellingOneCallerLeavesTheOthers() throws Exception {
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AsyncPathFinder<Coordinate, DefaultWeightedEdge> finder = new AsyncPathFinder<>(aStarBuilder, executor, 10);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// hold the only thread so that both queries are pending together
+			executor.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			PathQuery<Coordinate> query = TestMaps.getQueries(1, 17).get(0);
+			CompletableFuture<PathResult<Coordinate>> first = finder.search(query.getStart(), query.getGoal());
+			CompletableFuture<PathResult<Coordinate>> second = finder.search(query.getStart(), query.getGoal());
+			assertNotSame(first, second);
+			assertEquals(1, finder.getCoalescedCount());
+
+			first.cancel(false);
+			release.countDown();
+			PathResult<Coordinate> result = second.get(10, TimeUnit.SECONDS);
+			assertEquals(aStarBuilder.search(query.getStart(), query.getGoal()).getCost(), result.getCost(),
+					TestMaps.COST_TOLERANCE);
+			assertTrue(first.isCancelled());
+			assertFalse(second.isCancelled());
+		} finally {
+			release.countDown();
+			finder.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectsQueriesBeyondMaxPending() throws Exception {
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AsyncPathFinder<Coordinate, DefaultWeightedEdge> finder = new AsyncPathFinder<>(aStarBuilder, executor, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			List<Coordinate> vertices = TestMaps.getVertices();
+			CompletableFuture<PathResult<Coordinate>> accepted = finder.search(vertices.get(0), vertices.get(1));
+			CompletableFuture<PathResult<Coordinate>> rejected = finder.search(vertices.get(0), vertices.get(2));
+			try {
+				rejected.get(10, TimeUnit.SECONDS);
+				throw new AssertionError("query beyond maxPending was accepted");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			assertEquals(1, finder.getRejectedCount());
+			release.countDown();
+			accepted.get(10, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			finder.shutdown();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class BatchPathFinderTest {
+
+	@Test
+	public void returnsResultsInQueryOrder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		List<PathQuery<Coordinate>> queries = TestMaps.getQueries(300, 6);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<PathResult<Coordinate>> results = new BatchPathFinder<>(aStarBuilder, executor, 4)
+					.findpaths(queries);
+			assertEquals(queries.size(), results.size());
+			for (int i = 0; i < queries.size(); i++) {
+				PathQuery<Coordinate> query = queries.get(i);
+				TestMaps.assertSameCost(graph, query, aStarBuilder.search(query.getStart(), query.getGoal()),
+						results.get(i).getPath());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsParallelismBelowOne() {
+		new BatchPathFinder<>(new AStarBuilder<>(TestMaps.getGraph(), TestMaps.EUCLIDEAN),
+				Executors.newSingleThreadExecutor(), 0);
+	}
+}
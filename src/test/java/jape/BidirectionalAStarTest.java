@@ -0,0 +1,26 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class BidirectionalAStarTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		BidirectionalAStar<Coordinate, DefaultWeightedEdge> bidirectional = new BidirectionalAStar<>(graph,
+				TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 3)) {
+			PathResult<Coordinate> expected = reference.search(query.getStart(), query.getGoal());
+			PathResult<Coordinate> result = bidirectional.search(query.getStart(), query.getGoal());
+			TestMaps.assertSameCost(graph, query, expected, result.getPath());
+			assertEquals(expected.getCost(), result.getCost(), TestMaps.COST_TOLERANCE);
+		}
+	}
+}
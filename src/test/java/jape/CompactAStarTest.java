@@ -0,0 +1,32 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class CompactAStarTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		CompactAStar<Coordinate> compactAStar = new CompactAStar<>(graph, TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 1)) {
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					compactAStar.findpath(query.getStart(), query.getGoal()));
+		}
+	}
+
+	@Test
+	public void findsPathToItself() {
+		Coordinate site = TestMaps.getVertices().get(0);
+		CompactAStar<Coordinate> compactAStar = new CompactAStar<>(TestMaps.getGraph(), TestMaps.EUCLIDEAN);
+		assertEquals(Collections.singletonList(site), compactAStar.findpath(site, site));
+	}
+}
@@ -0,0 +1,138 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class ComponentLabelsTest {
+
+	/**
+	 * @return a query between vertices the labels prove cannot reach each
+	 *         other
+	 */
+	private static PathQuery<Coordinate> getUnreachableQuery(ComponentLabels<Coordinate> labels) {
+		CompactGraph<Coordinate> graph = labels.getGraph();
+		for (int goal = 1; goal < graph.getVertexCount(); goal++) {
+			if (!labels.mayReach(0, goal)) {
+				return new PathQuery<>(graph.getVertex(0), graph.getVertex(goal));
+			}
+		}
+		throw new IllegalStateException("the test map has one component");
+	}
+
+	@Test
+	public void agreesWithSearch() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		ComponentLabels<Coordinate> labels = ComponentLabels.build(graph);
+		assertTrue(labels.getComponentCount() > 1);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		int unreachable = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(300, 41)) {
+			boolean found = aStarBuilder.findpath(query.getStart(), query.getGoal()) != null;
+			boolean mayReach = labels.mayReach(query.getStart(), query.getGoal());
+			// the map's graph has edges both ways, so the labels are exact
+			assertEquals(query.toString(), found, mayReach);
+			if (!found) {
+				unreachable++;
+			}
+		}
+		assertTrue(unreachable > 0);
+	}
+
+	@Test
+	public void strongLabelsFollowEdgeDirection() {
+		SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> graph = new SimpleDirectedWeightedGraph<>(
+				DefaultWeightedEdge.class);
+		for (String vertex : new String[] { "a", "b", "c", "d" }) {
+			graph.addVertex(vertex);
+		}
+		graph.addEdge("a", "b");
+		graph.addEdge("b", "a");
+		graph.addEdge("b", "c");
+		ComponentLabels<String> labels = ComponentLabels.build(graph);
+		assertEquals(2, labels.getComponentCount());
+		assertEquals(3, labels.getStrongComponentCount());
+		assertTrue(labels.mayReach("a", "b"));
+		assertTrue(labels.mayReach("b", "a"));
+		assertTrue(labels.mayReach("a", "c"));
+		assertFalse(labels.mayReach("c", "a"));
+		assertFalse(labels.mayReach("a", "d"));
+		// nothing is known about vertices outside the graph
+		assertTrue(labels.mayReach("a", "e"));
+	}
+
+	@Test
+	public void enginesSkipUnreachableQueries() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		ComponentLabels<Coordinate> labels = ComponentLabels.build(graph);
+		PathQuery<Coordinate> query = getUnreachableQuery(labels);
+		Coordinate start = query.getStart();
+		Coordinate goal = query.getGoal();
+
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		aStarBuilder.setComponentLabels(labels);
+		assertSkipped(aStarBuilder.search(start, goal));
+
+		BidirectionalAStar<Coordinate, DefaultWeightedEdge> bidirectional = new BidirectionalAStar<>(graph,
+				TestMaps.EUCLIDEAN);
+		bidirectional.setComponentLabels(labels);
+		assertSkipped(bidirectional.search(start, goal));
+
+		AnytimeAStar<Coordinate, DefaultWeightedEdge> anytime = new AnytimeAStar<>(graph, TestMaps.EUCLIDEAN);
+		anytime.setComponentLabels(labels);
+		assertSkipped(anytime.search(start, goal, Long.MAX_VALUE, Integer.MAX_VALUE));
+
+		HierarchicalPathfinder<DefaultWeightedEdge> hierarchical = new HierarchicalPathfinder<>(TestMaps.getMap(),
+				graph, TestMaps.EUCLIDEAN, 200.0);
+		hierarchical.setComponentLabels(labels);
+		assertSkipped(hierarchical.search(start, goal));
+
+		DStarLite<Coordinate, DefaultWeightedEdge> dStarLite = new DStarLite<>(graph, TestMaps.EUCLIDEAN, start,
+				goal);
+		dStarLite.setComponentLabels(labels);
+		assertSkipped(dStarLite.replan());
+
+		assertSkipped(new ContractionHierarchy<>(labels.getGraph()).search(start, goal));
+		assertNull(new CompactAStar<>(labels.getGraph(), TestMaps.EUCLIDEAN).findpath(start, goal));
+	}
+
+	private static void assertSkipped(PathResult<Coordinate> result) {
+		assertNull(result.getPath());
+		assertEquals(0, result.getExpanded());
+	}
+
+	@Test
+	public void labelsOfVersionedGraphFollowEdits() {
+		VersionedGraph<Coordinate, DefaultWeightedEdge> graph = new VersionedGraph<>(DefaultWeightedEdge.class);
+		new RoutingGraphCompiler(TestMaps.getMap()).compileGraph(graph);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		ComponentLabels<Coordinate> labels = aStarBuilder.getComponentLabels();
+		assertNotNull("labels are built with the builder", labels);
+		assertTrue(labels.isCurrent());
+		PathQuery<Coordinate> query = getUnreachableQuery(labels);
+		Coordinate start = query.getStart();
+		Coordinate goal = query.getGoal();
+		assertNull(aStarBuilder.findpath(start, goal));
+
+		// join the two islands
+		graph.setEdgeWeight(graph.addEdge(start, goal), 1.0);
+		graph.setEdgeWeight(graph.addEdge(goal, start), 1.0);
+		assertFalse(labels.isCurrent());
+		assertTrue("stale labels rule nothing out", labels.mayReach(start, goal));
+		assertTrue(labels.getCurrent().mayReach(start, goal));
+
+		// the builder builds its labels again rather than trusting old ones
+		assertEquals(2, aStarBuilder.findpath(start, goal).size());
+		assertTrue(aStarBuilder.getComponentLabels() != labels);
+		assertTrue(aStarBuilder.getComponentLabels().isCurrent());
+		assertTrue(aStarBuilder.getComponentLabels().getComponentCount() < labels.getComponentCount());
+	}
+}
@@ -0,0 +1,32 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class ContractionHierarchyTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		ContractionHierarchy<Coordinate> hierarchy = new ContractionHierarchy<>(graph);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(300, 5)) {
+			PathResult<Coordinate> expected = reference.search(query.getStart(), query.getGoal());
+			PathResult<Coordinate> result = hierarchy.search(query.getStart(), query.getGoal());
+			// the unpacked path must only use edges of the original graph
+			TestMaps.assertSameCost(graph, query, expected, result.getPath());
+			assertEquals(expected.getCost(), result.getCost(), TestMaps.COST_TOLERANCE);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsStartOutsideGraph() {
+		ContractionHierarchy<Coordinate> hierarchy = new ContractionHierarchy<>(TestMaps.getGraph());
+		hierarchy.search(new Coordinate(-1.0, -1.0), TestMaps.getVertices().get(0));
+	}
+}
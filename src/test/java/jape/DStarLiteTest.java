@@ -0,0 +1,81 @@
+package jape;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class DStarLiteTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, 8)) {
+			DStarLite<Coordinate, DefaultWeightedEdge> dStarLite = new DStarLite<>(graph, TestMaps.EUCLIDEAN,
+					query.getStart(), query.getGoal());
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					dStarLite.findpath());
+		}
+	}
+
+	@Test
+	public void replansAfterEdgesChangeAndStartMoves() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.copyGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		int replanned = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, 9)) {
+			List<Coordinate> path = reference.findpath(query.getStart(), query.getGoal());
+			if (path == null || path.size() < 4) {
+				continue;
+			}
+			DStarLite<Coordinate, DefaultWeightedEdge> dStarLite = new DStarLite<>(graph, TestMaps.EUCLIDEAN,
+					query.getStart(), query.getGoal());
+			dStarLite.replan();
+
+			// step along the path, then make the next edge much dearer
+			Coordinate newStart = path.get(path.size() - 2);
+			dStarLite.moveStart(newStart);
+			DefaultWeightedEdge edge = graph.getEdge(newStart, path.get(path.size() - 3));
+			graph.setEdgeWeight(edge, graph.getEdgeWeight(edge) * 50.0);
+			dStarLite.edgeChanged(newStart, path.get(path.size() - 3));
+
+			PathQuery<Coordinate> moved = new PathQuery<>(newStart, query.getGoal());
+			TestMaps.assertSameCost(graph, moved, reference.search(newStart, query.getGoal()), dStarLite.findpath());
+			replanned++;
+		}
+		assertTrue(replanned > 0);
+	}
+
+	@Test
+	public void replansAfterStartMovesOffThePath() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		List<PathQuery<Coordinate>> queries = TestMaps.getQueries(100, 10);
+		int moved = 0;
+		for (int i = 0; i + 1 < queries.size(); i++) {
+			PathQuery<Coordinate> query = queries.get(i);
+			List<Coordinate> path = reference.findpath(query.getStart(), query.getGoal());
+			Coordinate newStart = queries.get(i + 1).getStart();
+			if (path == null || path.contains(newStart)) {
+				continue;
+			}
+			DStarLite<Coordinate, DefaultWeightedEdge> dStarLite = new DStarLite<>(graph, TestMaps.EUCLIDEAN,
+					query.getStart(), query.getGoal());
+			dStarLite.replan();
+
+			// no edges change, so only the start moving can make a replan wrong
+			dStarLite.moveStart(newStart);
+			PathQuery<Coordinate> fromHere = new PathQuery<>(newStart, query.getGoal());
+			TestMaps.assertSameCost(graph, fromHere, reference.search(newStart, query.getGoal()),
+					dStarLite.findpath());
+			moved++;
+		}
+		assertTrue(moved > 0);
+	}
+}
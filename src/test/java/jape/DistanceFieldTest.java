@@ -0,0 +1,64 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class DistanceFieldTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		CompactGraph<Coordinate> compactGraph = CompactGraph.build(graph);
+		List<PathQuery<Coordinate>> queries = TestMaps.getQueries(200, 15);
+		for (int i = 0; i < queries.size(); i += 20) {
+			Coordinate goal = queries.get(i).getGoal();
+			DistanceField<Coordinate> field = DistanceField.build(compactGraph, goal);
+			for (PathQuery<Coordinate> other : queries) {
+				PathQuery<Coordinate> query = new PathQuery<>(other.getStart(), goal);
+				PathResult<Coordinate> expected = reference.search(query.getStart(), goal);
+				TestMaps.assertSameCost(graph, query, expected, field.findpath(query.getStart()));
+				assertEquals(expected.getCost(), field.getDistance(query.getStart()), TestMaps.COST_TOLERANCE);
+			}
+		}
+	}
+
+	@Test
+	public void stopsAtRadius() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		CompactGraph<Coordinate> compactGraph = CompactGraph.build(graph);
+		Coordinate goal = TestMaps.getVertices().get(0);
+		DistanceField<Coordinate> full = DistanceField.build(compactGraph, goal);
+		double radius = 200.0;
+		DistanceField<Coordinate> near = DistanceField.build(compactGraph, goal, radius);
+		for (Coordinate vertex : TestMaps.getVertices()) {
+			double distance = full.getDistance(vertex);
+			if (distance <= radius) {
+				assertEquals(distance, near.getDistance(vertex), TestMaps.COST_TOLERANCE);
+			} else {
+				assertFalse(near.isReached(vertex));
+				assertNull(near.findpath(vertex));
+			}
+		}
+		assertNull(near.getNextHop(goal));
+	}
+
+	@Test
+	public void cacheReusesFields() {
+		CompactGraph<Coordinate> compactGraph = CompactGraph.build(TestMaps.getGraph());
+		DistanceFieldCache<Coordinate> cache = new DistanceFieldCache<>(compactGraph, 4);
+		Coordinate goal = TestMaps.getVertices().get(1);
+		assertSame(cache.get(goal), cache.get(goal));
+		assertEquals(1, cache.size());
+	}
+}
@@ -0,0 +1,50 @@
+package jape;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class HierarchicalPathfinderTest {
+
+	private static final double CLUSTER_SIZE = 200.0;
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilder() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		HierarchicalPathfinder<DefaultWeightedEdge> hierarchical = new HierarchicalPathfinder<>(TestMaps.getMap(),
+				graph, TestMaps.EUCLIDEAN, CLUSTER_SIZE);
+		assertTrue(hierarchical.getClusterCount() > 1);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 13)) {
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					hierarchical.findpath(query.getStart(), query.getGoal()));
+		}
+	}
+
+	@Test
+	public void followsChangedSites() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.copyGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		HierarchicalPathfinder<DefaultWeightedEdge> hierarchical = new HierarchicalPathfinder<>(TestMaps.getMap(),
+				graph, TestMaps.EUCLIDEAN, CLUSTER_SIZE);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, 14)) {
+			List<Coordinate> path = reference.findpath(query.getStart(), query.getGoal());
+			if (path != null && path.size() > 2) {
+				// make every edge out of a site on the path much dearer
+				Coordinate site = path.get(path.size() / 2);
+				for (DefaultWeightedEdge edge : graph.outgoingEdgesOf(site)) {
+					graph.setEdgeWeight(edge, graph.getEdgeWeight(edge) * 20.0);
+				}
+				hierarchical.siteChanged(site);
+			}
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					hierarchical.findpath(query.getStart(), query.getGoal()));
+		}
+	}
+}
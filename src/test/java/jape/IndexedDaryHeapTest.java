@@ -0,0 +1,83 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class IndexedDaryHeapTest {
+
+	@Test
+	public void pollsInPriorityOrderAfterRandomUpdates() {
+		for (int arity = 2; arity <= 5; arity++) {
+			IndexedDaryHeap<Integer> heap = new IndexedDaryHeap<>(arity);
+			Map<Integer, Double> queued = new HashMap<>();
+			Random rng = new Random(arity);
+			for (int i = 0; i < 5000; i++) {
+				int vertex = rng.nextInt(500);
+				if (rng.nextInt(4) == 0 && queued.containsKey(vertex)) {
+					heap.remove(vertex);
+					queued.remove(vertex);
+				} else {
+					double priority = rng.nextDouble();
+					heap.put(vertex, priority);
+					queued.put(vertex, priority);
+				}
+			}
+			assertEquals(queued.size(), heap.size());
+			double last = Double.NEGATIVE_INFINITY;
+			while (!heap.isEmpty()) {
+				Integer vertex = heap.peek();
+				assertEquals(queued.get(vertex), heap.getPriority(vertex), 0.0);
+				assertEquals(vertex, heap.poll());
+				double priority = queued.remove(vertex);
+				assertTrue(priority >= last);
+				last = priority;
+			}
+			assertTrue(queued.isEmpty());
+			assertNull(heap.poll());
+		}
+	}
+
+	@Test
+	public void breaksTiesByTieBreak() {
+		IndexedDaryHeap<String> heap = new IndexedDaryHeap<>(4);
+		heap.put("b", 1.0, 2.0);
+		heap.put("a", 1.0, 1.0);
+		heap.put("c", 0.5, 9.0);
+		assertEquals("c", heap.poll());
+		assertEquals("a", heap.poll());
+		assertEquals("b", heap.poll());
+		assertFalse(heap.contains("a"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsArityBelowTwo() {
+		new IndexedDaryHeap<String>(1);
+	}
+
+	@Test
+	public void everyStrategyFindsPathsOfTheSameCost() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN,
+				OpenListStrategy.BINARY_HEAP);
+		for (OpenListStrategy strategy : OpenListStrategy.values()) {
+			AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph,
+					TestMaps.EUCLIDEAN, strategy);
+			for (PathQuery<Coordinate> query : TestMaps.getQueries(100, 2)) {
+				TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+						aStarBuilder.findpath(query.getStart(), query.getGoal()));
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntMinHeapTest {
+
+	private static void assertPollsInKeyOrder(IntMinHeap heap, double[] keys, boolean[] queued) {
+		double last = Double.NEGATIVE_INFINITY;
+		while (!heap.isEmpty()) {
+			double key = heap.peekKey();
+			int vertex = heap.poll();
+			assertTrue(queued[vertex]);
+			assertEquals(keys[vertex], key, 0.0);
+			assertTrue(key >= last);
+			queued[vertex] = false;
+			last = key;
+		}
+		for (boolean stillQueued : queued) {
+			assertFalse(stillQueued);
+		}
+	}
+
+	@Test
+	public void pollsInKeyOrderAfterRandomUpdates() {
+		for (int arity = 2; arity <= 4; arity++) {
+			IntMinHeap heap = new IntMinHeap(16, arity);
+			double[] keys = new double[300];
+			boolean[] queued = new boolean[keys.length];
+			Random rng = new Random(arity);
+			for (int i = 0; i < 3000; i++) {
+				int vertex = rng.nextInt(keys.length);
+				heap.ensureCapacity(vertex + 1);
+				if (rng.nextInt(4) == 0 && queued[vertex]) {
+					heap.remove(vertex);
+					queued[vertex] = false;
+				} else {
+					keys[vertex] = rng.nextDouble();
+					heap.put(vertex, keys[vertex]);
+					queued[vertex] = true;
+				}
+			}
+			assertPollsInKeyOrder(heap, keys, queued);
+		}
+	}
+
+	@Test
+	public void rekeyAllRestoresHeapOrder() {
+		for (int arity = 2; arity <= 4; arity++) {
+			IntMinHeap heap = new IntMinHeap(500, arity);
+			double[] keys = new double[500];
+			boolean[] queued = new boolean[keys.length];
+			Random rng = new Random(arity);
+			for (int vertex = 0; vertex < keys.length; vertex += 2) {
+				heap.put(vertex, rng.nextDouble());
+				queued[vertex] = true;
+			}
+			for (int vertex = 0; vertex < keys.length; vertex++) {
+				keys[vertex] = rng.nextDouble();
+			}
+			heap.rekeyAll(vertex -> keys[vertex]);
+			for (int vertex = 0; vertex < keys.length; vertex += 2) {
+				assertEquals(keys[vertex], heap.getKey(vertex), 0.0);
+			}
+			assertPollsInKeyOrder(heap, keys, queued);
+		}
+	}
+
+	@Test
+	public void clearEmptiesTheHeap() {
+		IntMinHeap heap = new IntMinHeap(10);
+		heap.put(3, 1.0);
+		heap.put(7, 0.5);
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(3));
+		heap.put(3, 2.0);
+		assertEquals(3, heap.poll());
+	}
+}
@@ -0,0 +1,47 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class LandmarkHeuristicTest {
+
+	@Test
+	public void neverOverestimates() {
+		CompactGraph<Coordinate> graph = CompactGraph.build(TestMaps.getGraph());
+		for (LandmarkSelection selection : LandmarkSelection.values()) {
+			LandmarkHeuristic<Coordinate> heuristic = new LandmarkHeuristic<>(graph, 8, selection,
+					ForkJoinPool.commonPool(), Long.MAX_VALUE);
+			assertEquals(8, heuristic.getLandmarkCount());
+			for (int target = 0; target < graph.getVertexCount(); target += 37) {
+				double[] distance = CompactDijkstra.distancesTo(graph, target);
+				for (int source = 0; source < graph.getVertexCount(); source++) {
+					double estimate = heuristic.getCostEstimate(source, target);
+					assertTrue(estimate >= 0.0);
+					assertTrue(estimate <= distance[source] + TestMaps.COST_TOLERANCE);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void aStarWithLandmarksFindsPathsAsCheapAsEuclidean() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		LandmarkHeuristic<Coordinate> heuristic = new LandmarkHeuristic<>(CompactGraph.build(graph), 8);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> alt = new AStarBuilder<>(graph, heuristic);
+		List<PathQuery<Coordinate>> queries = TestMaps.getQueries(200, 4);
+		for (PathQuery<Coordinate> query : queries) {
+			TestMaps.assertSameCost(graph, query, reference.search(query.getStart(), query.getGoal()),
+					alt.findpath(query.getStart(), query.getGoal()));
+		}
+	}
+}
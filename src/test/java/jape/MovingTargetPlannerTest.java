@@ -0,0 +1,81 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class MovingTargetPlannerTest {
+
+	@Test
+	public void findsPathsAsCheapAsAStarBuilderAsGoalMoves() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		MovingTargetPlanner<Coordinate> planner = new MovingTargetPlanner<>(graph, TestMaps.EUCLIDEAN);
+		List<Coordinate> vertices = TestMaps.getVertices();
+		Random rng = new Random(61);
+		for (int run = 0; run < 5; run++) {
+			Coordinate start = vertices.get(rng.nextInt(vertices.size()));
+			// a new goal every ten queries, stepping to a neighbour between
+			Coordinate goal = vertices.get(rng.nextInt(vertices.size()));
+			for (int i = 0; i < 40; i++) {
+				if (i % 10 == 0) {
+					goal = vertices.get(rng.nextInt(vertices.size()));
+				} else {
+					List<DefaultWeightedEdge> edges = new ArrayList<>(graph.outgoingEdgesOf(goal));
+					if (!edges.isEmpty()) {
+						goal = graph.getEdgeTarget(edges.get(rng.nextInt(edges.size())));
+					}
+				}
+				PathQuery<Coordinate> query = new PathQuery<>(start, goal);
+				PathResult<Coordinate> expected = reference.search(start, goal);
+				PathResult<Coordinate> result = planner.search(start, goal);
+				TestMaps.assertSameCost(graph, query, expected, result.getPath());
+				if (expected.isFound()) {
+					assertEquals(expected.getCost(), result.getCost(), TestMaps.COST_TOLERANCE);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void keepsTreeBetweenQueries() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		MovingTargetPlanner<Coordinate> planner = new MovingTargetPlanner<>(graph, TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, 62)) {
+			if (planner.search(query.getStart(), query.getGoal()).isFound()) {
+				// the goal is in the tree now, so asking again expands nothing
+				PathResult<Coordinate> again = planner.search(query.getStart(), query.getGoal());
+				assertTrue(again.isFound());
+				assertEquals(0, again.getExpanded());
+				return;
+			}
+		}
+		throw new AssertionError("no query with a path");
+	}
+
+	@Test
+	public void componentLabelsSkipUnreachableGoal() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		ComponentLabels<Coordinate> labels = ComponentLabels.build(graph);
+		MovingTargetPlanner<Coordinate> planner = new MovingTargetPlanner<>(graph, TestMaps.EUCLIDEAN);
+		planner.setComponentLabels(labels);
+		int goal = 1;
+		while (labels.mayReach(0, goal)) {
+			goal++;
+		}
+		PathResult<Coordinate> result = planner.search(labels.getGraph().getVertex(0),
+				labels.getGraph().getVertex(goal));
+		assertNull(result.getPath());
+		assertEquals(0, result.getExpanded());
+	}
+}
@@ -0,0 +1,64 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.IslandMap;
+
+public class NeighbourSourceTest {
+
+	@Test
+	public void everySourceFindsPathsOfTheSameCost() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		AStarBuilder<Coordinate, Object> overMap = new AStarBuilder<>(MapNeighbourSource.overLand(TestMaps.getMap()),
+				TestMaps.EUCLIDEAN);
+		AStarBuilder<Coordinate, Object> overCompact = new AStarBuilder<>(
+				new CompactNeighbourSource<>(CompactGraph.build(graph)), TestMaps.EUCLIDEAN);
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 24)) {
+			PathResult<Coordinate> expected = reference.search(query.getStart(), query.getGoal());
+			for (AStarBuilder<Coordinate, Object> aStarBuilder : Arrays.asList(overMap, overCompact)) {
+				PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal());
+				TestMaps.assertSameCost(graph, query, expected, result.getPath());
+				assertEquals(expected.getCost(), result.getCost(), TestMaps.COST_TOLERANCE);
+			}
+		}
+	}
+
+	@Test
+	public void underwaterStartHasNoSuccessors() {
+		IslandMap map = TestMaps.getMap();
+		MapNeighbourSource source = MapNeighbourSource.overLand(map);
+		AStarBuilder<Coordinate, Object> aStarBuilder = new AStarBuilder<>(source, TestMaps.EUCLIDEAN);
+		Coordinate land = TestMaps.getVertices().get(0);
+		SuccessorIterator<Coordinate> successors = source.newSuccessorIterator();
+		int checked = 0;
+		for (Coordinate site : map.getSites()) {
+			if (!map.getIsSiteUnderwater(site)) {
+				continue;
+			}
+			successors.start(site);
+			assertFalse(successors.next());
+			assertNull(aStarBuilder.findpath(site, land));
+			checked++;
+		}
+		assertTrue(checked > 0);
+
+		// land sites still have their land neighbours
+		successors.start(land);
+		assertTrue(successors.next());
+		assertNotNull(successors.getSuccessor());
+		assertFalse(map.getIsSiteUnderwater(successors.getSuccessor()));
+	}
+}
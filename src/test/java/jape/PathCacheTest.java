@@ -0,0 +1,65 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class PathCacheTest {
+
+	private static PathQuery<Coordinate> getQueryWithPath(AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder) {
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(100, 7)) {
+			List<Coordinate> path = aStarBuilder.findpath(query.getStart(), query.getGoal());
+			if (path != null && path.size() > 2) {
+				return query;
+			}
+		}
+		throw new IllegalStateException("no query with a path");
+	}
+
+	@Test
+	public void returnsCachedResultWithUnmodifiablePath() {
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		PathCache<Coordinate, DefaultWeightedEdge> cache = PathCache.withMaximumSize(aStarBuilder, 10);
+		PathQuery<Coordinate> query = getQueryWithPath(aStarBuilder);
+		PathResult<Coordinate> first = cache.search(query.getStart(), query.getGoal());
+		PathResult<Coordinate> second = cache.search(query.getStart(), query.getGoal());
+		assertSame(first, second);
+		assertEquals(1, cache.getStats().hitCount());
+		try {
+			first.getPath().clear();
+		} catch (UnsupportedOperationException e) {
+			return;
+		}
+		throw new AssertionError("cached path could be modified");
+	}
+
+	@Test
+	public void dropsEntriesWhenVersionedGraphChanges() {
+		VersionedGraph<Coordinate, DefaultWeightedEdge> graph = new VersionedGraph<>(DefaultWeightedEdge.class);
+		new RoutingGraphCompiler(TestMaps.getMap()).compileGraph(graph);
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		PathCache<Coordinate, DefaultWeightedEdge> cache = PathCache.withMaximumWeight(aStarBuilder, 10000);
+		PathQuery<Coordinate> query = getQueryWithPath(aStarBuilder);
+		PathResult<Coordinate> before = cache.search(query.getStart(), query.getGoal());
+
+		// make the first step of the path far more expensive
+		List<Coordinate> path = before.getPath();
+		DefaultWeightedEdge edge = graph.getEdge(path.get(path.size() - 1), path.get(path.size() - 2));
+		graph.setEdgeWeight(edge, graph.getEdgeWeight(edge) * 1000.0);
+
+		PathResult<Coordinate> after = cache.search(query.getStart(), query.getGoal());
+		assertNotSame(before, after);
+		assertTrue(after.getCost() >= before.getCost());
+		assertEquals(aStarBuilder.search(query.getStart(), query.getGoal()).getCost(), after.getCost(),
+				TestMaps.COST_TOLERANCE);
+	}
+}
@@ -0,0 +1,74 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.map.IslandMap;
+
+public class RoutingGraphCompilerTest {
+
+	@Test
+	public void linksNeighbouringLandSites() {
+		IslandMap map = TestMaps.getMap();
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = new RoutingGraphCompiler(map)
+				.compileGraph();
+		int land = 0;
+		for (Coordinate site : map.getSites()) {
+			boolean underwater = map.getIsSiteUnderwater(site);
+			assertEquals(!underwater, graph.containsVertex(site));
+			if (underwater) {
+				continue;
+			}
+			land++;
+			for (Coordinate linkedSite : map.getLinkedSites(site)) {
+				DefaultWeightedEdge edge = graph.getEdge(site, linkedSite);
+				if (map.getIsSiteUnderwater(linkedSite)) {
+					assertNull(edge);
+				} else {
+					assertNotNull(edge);
+					assertEquals(EdgeCostFunction.HEIGHT_SCALED_DISTANCE.getCost(map, site, linkedSite),
+							graph.getEdgeWeight(edge), 0.0);
+				}
+			}
+		}
+		assertTrue(land > 0);
+		assertEquals(land, graph.vertexSet().size());
+	}
+
+	@Test
+	public void compactGraphHasTheSameEdges() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		CompactGraph<Coordinate> compactGraph = new RoutingGraphCompiler(TestMaps.getMap()).compileCompact();
+		assertEquals(graph.vertexSet().size(), compactGraph.getVertexCount());
+		assertEquals(graph.edgeSet().size(), compactGraph.getEdgeCount());
+		for (int v = 0; v < compactGraph.getVertexCount(); v++) {
+			Coordinate site = compactGraph.getVertex(v);
+			for (int edge = compactGraph.getFirstEdge(v); edge < compactGraph.getEdgeEnd(v); edge++) {
+				Coordinate target = compactGraph.getVertex(compactGraph.getEdgeTarget(edge));
+				DefaultWeightedEdge graphEdge = graph.getEdge(site, target);
+				assertNotNull(graphEdge);
+				assertEquals(graph.getEdgeWeight(graphEdge), compactGraph.getEdgeWeight(edge), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void filterLeavesOutSites() {
+		IslandMap map = TestMaps.getMap();
+		Coordinate excluded = TestMaps.getVertices().get(0);
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = new RoutingGraphCompiler(map,
+				EdgeCostFunction.HEIGHT_SCALED_DISTANCE,
+				site -> !map.getIsSiteUnderwater(site) && !site.equals(excluded)).compileGraph();
+		assertFalse(graph.containsVertex(excluded));
+		assertEquals(TestMaps.getGraph().vertexSet().size() - 1, graph.vertexSet().size());
+	}
+}
@@ -0,0 +1,106 @@
+package jape;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class RoutingGraphFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void readsBackWhatWasWritten() throws IOException {
+		CompactGraph<Coordinate> graph = new RoutingGraphCompiler(TestMaps.getMap()).compileCompact();
+		LandmarkHeuristic<Coordinate> landmarks = new LandmarkHeuristic<>(graph, 4);
+		Path file = folder.getRoot().toPath().resolve("graph.bin");
+		RoutingGraphFile.write(file, graph, TestMaps.getMap(), landmarks);
+
+		RoutingGraphFile read = RoutingGraphFile.read(file);
+		CompactGraph<Coordinate> readGraph = read.getGraph();
+		assertEquals(graph.getVertexCount(), readGraph.getVertexCount());
+		assertEquals(graph.getEdgeCount(), readGraph.getEdgeCount());
+		for (int v = 0; v < graph.getVertexCount(); v++) {
+			assertEquals(graph.getVertex(v), readGraph.getVertex(v));
+			assertEquals(v, readGraph.getIndex(graph.getVertex(v)));
+			assertEquals(TestMaps.getMap().getHeightOfSite(graph.getVertex(v)), read.getHeight(v), 0.0);
+			assertEquals(graph.getFirstEdge(v), readGraph.getFirstEdge(v));
+			assertEquals(graph.getEdgeEnd(v), readGraph.getEdgeEnd(v));
+		}
+		for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+			assertEquals(graph.getEdgeTarget(edge), readGraph.getEdgeTarget(edge));
+			assertEquals(graph.getEdgeWeight(edge), readGraph.getEdgeWeight(edge), 0.0);
+		}
+		// the transpose is read, not rebuilt, so check it too
+		for (int v = 0; v < graph.getVertexCount(); v++) {
+			assertEquals(graph.getFirstIncomingEdge(v), readGraph.getFirstIncomingEdge(v));
+			assertEquals(graph.getIncomingEdgeEnd(v), readGraph.getIncomingEdgeEnd(v));
+		}
+		for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+			assertEquals(graph.getIncomingEdgeSource(edge), readGraph.getIncomingEdgeSource(edge));
+			assertEquals(graph.getIncomingEdgeWeight(edge), readGraph.getIncomingEdgeWeight(edge), 0.0);
+		}
+
+		assertTrue(read.hasLandmarks());
+		LandmarkHeuristic<Coordinate> readLandmarks = read.getLandmarkHeuristic();
+		assertEquals(landmarks.getLandmarks(), readLandmarks.getLandmarks());
+		for (int source = 0; source < graph.getVertexCount(); source += 7) {
+			for (int target = 0; target < graph.getVertexCount(); target += 11) {
+				assertEquals(landmarks.getCostEstimate(source, target), readLandmarks.getCostEstimate(source, target),
+						0.0);
+			}
+		}
+	}
+
+	@Test
+	public void searchesTheMappedGraph() throws IOException {
+		CompactGraph<Coordinate> graph = new RoutingGraphCompiler(TestMaps.getMap()).compileCompact();
+		Path file = folder.getRoot().toPath().resolve("graph.bin");
+		RoutingGraphFile.write(file, graph, TestMaps.getMap(), new LandmarkHeuristic<>(graph, 4));
+		RoutingGraphFile read = RoutingGraphFile.read(file);
+		// the mapping outlives the file being replaced
+		RoutingGraphFile.write(file, graph, TestMaps.getMap());
+
+		AStarBuilder<Coordinate, DefaultWeightedEdge> reference = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		AStarBuilder<Coordinate, Object> overFile = new AStarBuilder<>(
+				new CompactNeighbourSource<>(read.getGraph()), read.getLandmarkHeuristic());
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(100, 25)) {
+			TestMaps.assertSameCost(TestMaps.getGraph(), query, reference.search(query.getStart(), query.getGoal()),
+					overFile.findpath(query.getStart(), query.getGoal()));
+		}
+		for (int target = 0; target < graph.getVertexCount(); target += 50) {
+			assertArrayEquals(CompactDijkstra.distancesTo(graph, target),
+					CompactDijkstra.distancesTo(read.getGraph(), target), 0.0);
+		}
+	}
+
+	@Test
+	public void readsGraphWithoutLandmarks() throws IOException {
+		CompactGraph<Coordinate> graph = new RoutingGraphCompiler(TestMaps.getMap()).compileCompact();
+		Path file = folder.getRoot().toPath().resolve("graph.bin");
+		RoutingGraphFile.write(file, graph, TestMaps.getMap());
+		RoutingGraphFile read = RoutingGraphFile.read(file);
+		assertFalse(read.hasLandmarks());
+		assertEquals(graph.getEdgeCount(), read.getGraph().getEdgeCount());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("other.bin");
+		Files.write(file, new byte[64]);
+		RoutingGraphFile.read(file);
+	}
+}
@@ -0,0 +1,89 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class SearchContextTest {
+
+	@Test
+	public void reusesContextAcrossQueries() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		SearchContext<Coordinate> context = new SearchContext<>();
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(200, 12)) {
+			PathResult<Coordinate> fresh = aStarBuilder.search(query.getStart(), query.getGoal(),
+					new SearchContext<Coordinate>());
+			TestMaps.assertSameCost(graph, query, fresh,
+					aStarBuilder.search(query.getStart(), query.getGoal(), context).getPath());
+		}
+		assertTrue(context.getVertexCount() <= graph.vertexSet().size());
+	}
+
+	@Test
+	public void wrapsGenerationAround() {
+		SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph, TestMaps.EUCLIDEAN);
+		SearchContext<Coordinate> context = new SearchContext<>();
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(20, 13)) {
+			// stamp the vertices near the goal, with low costs, using the
+			// generation the wrap-around restarts at
+			context.setGeneration(0);
+			aStarBuilder.search(query.getGoal(), query.getStart(), context);
+			context.setGeneration(Integer.MAX_VALUE - 1);
+			PathResult<Coordinate> fresh = aStarBuilder.search(query.getStart(), query.getGoal(),
+					new SearchContext<Coordinate>());
+			PathResult<Coordinate> reused = aStarBuilder.search(query.getStart(), query.getGoal(), context);
+			TestMaps.assertSameCost(graph, query, fresh, reused.getPath());
+			assertEquals(fresh.getExpanded(), reused.getExpanded());
+		}
+	}
+
+	@Test
+	public void reusedContextAllocatesLessThanFreshOnes() {
+		assumeTrue(AllocationMeter.isSupported());
+		CompactGraph<Coordinate> graph = CompactGraph.build(TestMaps.getGraph());
+		AStarBuilder<Coordinate, Object> aStarBuilder = new AStarBuilder<>(new CompactNeighbourSource<>(graph),
+				TestMaps.EUCLIDEAN);
+		List<PathQuery<Coordinate>> queries = TestMaps.getQueries(200, 14);
+		SearchContext<Coordinate> context = new SearchContext<>();
+		// number every vertex the queries reach, and warm up
+		for (int round = 0; round < 3; round++) {
+			runAll(aStarBuilder, queries, context);
+			runAll(aStarBuilder, queries, null);
+		}
+
+		long before = AllocationMeter.getAllocatedBytes();
+		runAll(aStarBuilder, queries, context);
+		long reusedBytes = (AllocationMeter.getAllocatedBytes() - before) / queries.size();
+		before = AllocationMeter.getAllocatedBytes();
+		runAll(aStarBuilder, queries, null);
+		long freshBytes = (AllocationMeter.getAllocatedBytes() - before) / queries.size();
+
+		// about the size of the returned path, against the arrays and index
+		// a fresh context builds
+		assertTrue("reused " + reusedBytes + " bytes per query", reusedBytes < 4096);
+		assertTrue("reused " + reusedBytes + ", fresh " + freshBytes + " bytes per query",
+				reusedBytes * 4 < freshBytes);
+	}
+
+	/**
+	 * @param context
+	 *            null to give each query a fresh context
+	 */
+	private static void runAll(AStarBuilder<Coordinate, Object> aStarBuilder, List<PathQuery<Coordinate>> queries,
+			SearchContext<Coordinate> context) {
+		for (PathQuery<Coordinate> query : queries) {
+			aStarBuilder.search(query.getStart(), query.getGoal(),
+					context != null ? context : new SearchContext<Coordinate>());
+		}
+	}
+}
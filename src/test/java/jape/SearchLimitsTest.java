@@ -0,0 +1,96 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+public class SearchLimitsTest {
+
+	private final SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph = TestMaps.getGraph();
+	private final AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(graph,
+			TestMaps.EUCLIDEAN);
+
+	@Test
+	public void noLimitsFindPathsAsCheapAsFindpath() {
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(100, 15)) {
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal(), SearchLimits.NONE);
+			assertEquals(SearchStatus.COMPLETED, result.getStatus());
+			assertNull(result.getPartialPath());
+			TestMaps.assertSameCost(graph, query, result, aStarBuilder.findpath(query.getStart(), query.getGoal()));
+		}
+	}
+
+	@Test
+	public void stopsAtExpansionLimit() {
+		int stopped = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(100, 16)) {
+			PathResult<Coordinate> unlimited = aStarBuilder.search(query.getStart(), query.getGoal());
+			if (!unlimited.isFound() || unlimited.getExpanded() <= 10) {
+				continue;
+			}
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal(),
+					SearchLimits.NONE.withMaxExpansions(10));
+			assertStopped(query, SearchStatus.EXPANSION_LIMIT_REACHED, result);
+			assertEquals(10, result.getExpanded());
+			stopped++;
+		}
+		assertTrue(stopped > 0);
+	}
+
+	@Test
+	public void stopsAtPastDeadline() {
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(20, 17)) {
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal(),
+					SearchLimits.NONE.withDeadline(System.nanoTime() - 1));
+			if (!query.getStart().equals(query.getGoal())) {
+				assertStopped(query, SearchStatus.DEADLINE_PASSED, result);
+				assertEquals(0, result.getExpanded());
+			}
+		}
+	}
+
+	@Test
+	public void stopsWhenCancelled() {
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(20, 18)) {
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal(),
+					SearchLimits.NONE.withCancellationToken(token));
+			if (!query.getStart().equals(query.getGoal())) {
+				assertStopped(query, SearchStatus.CANCELLED, result);
+				assertNull(aStarBuilder.findpath(query.getStart(), query.getGoal(),
+						SearchLimits.NONE.withCancellationToken(token)));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeExpansionLimit() {
+		SearchLimits.NONE.withMaxExpansions(-1);
+	}
+
+	/**
+	 * Checks the result has no path, but a partial path back to the start
+	 * along edges of the graph.
+	 */
+	private void assertStopped(PathQuery<Coordinate> query, SearchStatus status, PathResult<Coordinate> result) {
+		assertEquals(status, result.getStatus());
+		assertNull(result.getPath());
+		assertEquals(Double.POSITIVE_INFINITY, result.getCost(), 0.0);
+		List<Coordinate> partialPath = result.getPartialPath();
+		assertNotNull(partialPath);
+		assertEquals(query.getStart(), partialPath.get(partialPath.size() - 1));
+		for (int i = 0; i + 1 < partialPath.size(); i++) {
+			assertTrue(graph.containsEdge(partialPath.get(i + 1), partialPath.get(i)));
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package jape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleDirectedWeightedGraph;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+
+import jape.map.Builder;
+import jape.map.IslandMap;
+
+/**
+ * A small island map and its routing graph, built once from a fixed seed
+ * and shared by the tests.
+ */
+public class TestMaps {
+
+	public static final Heuristic<Coordinate> EUCLIDEAN = (source, target) -> source.distance(target);
+
+	/**
+	 * Tolerance when comparing path costs, which may be summed in a
+	 * different order.
+	 */
+	public static final double COST_TOLERANCE = 1e-6;
+
+	/**
+	 * JTS coordinates only implement the raw Comparable, so sort them with
+	 * this instead.
+	 */
+	public static final Comparator<Coordinate> X_THEN_Y = Comparator.comparingDouble((Coordinate c) -> c.x)
+			.thenComparingDouble(c -> c.y);
+
+	private static final int SITE_COUNT = 800;
+	private static final double SITE_SPACING = 40.0;
+	private static final long MAP_SEED = 42;
+
+	private static IslandMap map;
+	private static SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> graph;
+
+	private TestMaps() {
+	}
+
+	public static synchronized IslandMap getMap() {
+		if (map == null) {
+			double size = Math.sqrt(SITE_COUNT) * SITE_SPACING;
+			GeometryFactory geomFact = new GeometryFactory();
+			Polygon bounds = geomFact.createPolygon(new Coordinate[] { new Coordinate(0.0, 0.0),
+					new Coordinate(0.0, size), new Coordinate(size, size), new Coordinate(size, 0.0),
+					new Coordinate(0.0, 0.0) });
+			Builder builder = new Builder();
+			Set<Coordinate> points = builder.createRandomPoints(SITE_COUNT, MAP_SEED, bounds);
+			points = builder.relax(points, bounds);
+			map = builder.buildData(points, bounds);
+		}
+		return map;
+	}
+
+	/**
+	 * @return the routing graph of the land sites; tests must not change it
+	 */
+	public static synchronized SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> getGraph() {
+		if (graph == null) {
+			graph = new RoutingGraphCompiler(getMap()).compileGraph();
+		}
+		return graph;
+	}
+
+	/**
+	 * @return a fresh copy of the routing graph, for tests that edit it
+	 */
+	public static SimpleDirectedWeightedGraph<Coordinate, DefaultWeightedEdge> copyGraph() {
+		return new RoutingGraphCompiler(getMap()).compileGraph();
+	}
+
+	/**
+	 * @return the vertices of the graph in a fixed order
+	 */
+	public static List<Coordinate> getVertices() {
+		List<Coordinate> vertices = new ArrayList<>(getGraph().vertexSet());
+		vertices.sort(X_THEN_Y);
+		return vertices;
+	}
+
+	/**
+	 * @return random pairs of vertices, some of which have no path
+	 */
+	public static List<PathQuery<Coordinate>> getQueries(int count, long seed) {
+		List<Coordinate> vertices = getVertices();
+		Random rng = new Random(seed);
+		List<PathQuery<Coordinate>> queries = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			queries.add(new PathQuery<>(vertices.get(rng.nextInt(vertices.size())),
+					vertices.get(rng.nextInt(vertices.size()))));
+		}
+		return queries;
+	}
+
+	/**
+	 * @param path
+	 *            from goal back to start
+	 * @return the sum of the edge weights along the path, or NaN if an edge
+	 *         is missing or there is no path
+	 */
+	public static <V, E> double getCost(SimpleDirectedWeightedGraph<V, E> graph, List<V> path) {
+		if (path == null) {
+			return Double.NaN;
+		}
+		double cost = 0.0;
+		for (int i = path.size() - 1; i > 0; i--) {
+			E edge = graph.getEdge(path.get(i), path.get(i - 1));
+			if (edge == null) {
+				return Double.NaN;
+			}
+			cost += graph.getEdgeWeight(edge);
+		}
+		return cost;
+	}
+
+	/**
+	 * Asserts that path joins the query's goal back to its start with the
+	 * same cost as expected, or that there is no path if none was expected.
+	 */
+	public static <V, E> void assertSameCost(SimpleDirectedWeightedGraph<V, E> graph, PathQuery<V> query,
+			PathResult<V> expected, List<V> path) {
+		if (!expected.isFound()) {
+			assertNull("path for " + query, path);
+			return;
+		}
+		assertNotNull("no path for " + query, path);
+		assertEquals(query.getGoal(), path.get(0));
+		assertEquals(query.getStart(), path.get(path.size() - 1));
+		assertEquals("cost for " + query, expected.getCost(), getCost(graph, path), COST_TOLERANCE);
+	}
+}
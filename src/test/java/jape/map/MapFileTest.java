@@ -0,0 +1,77 @@
+package jape.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.TestMaps;
+
+public class MapFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void assertSameMap(IslandMap expected, IslandMap actual) {
+		assertEquals(expected.getSites(), actual.getSites());
+		assertTrue(expected.getBoundary().equalsExact(actual.getBoundary()));
+		assertEquals(expected.getRegions().size(), actual.getRegions().size());
+		for (Coordinate site : expected.getSites()) {
+			assertTrue(expected.getRegionOfSite(site).equalsExact(actual.getRegionOfSite(site)));
+			assertEquals(site, actual.getSiteOfRegion(actual.getRegionOfSite(site)));
+			assertEquals(expected.getLinkedSites(site), actual.getLinkedSites(site));
+			assertEquals(expected.getIsSiteUnderwater(site), actual.getIsSiteUnderwater(site));
+			assertEquals(expected.getHeightOfSite(site), actual.getHeightOfSite(site), 0.0);
+			for (Coordinate linkedSite : expected.getLinkedSites(site)) {
+				assertEquals(expected.getSiteToSiteMidpoint(site, linkedSite),
+						actual.getSiteToSiteMidpoint(site, linkedSite));
+			}
+			for (Coordinate corner : expected.getRegionOfSite(site).getCoordinates()) {
+				assertEquals(expected.getHeightOfSite(corner), actual.getHeightOfSite(corner), 0.0);
+			}
+		}
+		assertEquals(expected.getPointLocator().getTriangleCount(), actual.getPointLocator().getTriangleCount());
+		assertEquals(expected.getSiteIndex().size(), actual.getSiteIndex().size());
+	}
+
+	@Test
+	public void readsBackFile() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("map.bin");
+		MapFile.write(TestMaps.getMap(), file);
+		assertSameMap(TestMaps.getMap(), MapFile.readIslandMap(file));
+	}
+
+	@Test
+	public void readsBackStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MapFile.write(TestMaps.getMap(), out);
+		BasicMap map = MapFile.read(new ByteArrayInputStream(out.toByteArray()));
+		assertTrue(map instanceof IslandMap);
+		assertSameMap(TestMaps.getMap(), (IslandMap) map);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("other.bin");
+		Files.write(file, new byte[64]);
+		MapFile.read(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MapFile.write(TestMaps.getMap(), out);
+		byte[] bytes = out.toByteArray();
+		MapFile.read(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+	}
+}
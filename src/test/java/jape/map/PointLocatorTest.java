@@ -0,0 +1,79 @@
+package jape.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+
+import jape.TestMaps;
+
+public class PointLocatorTest {
+
+	private static List<Coordinate> getPoints(int count, long seed) {
+		double size = TestMaps.getMap().getBoundary().getEnvelopeInternal().getWidth();
+		Random rng = new Random(seed);
+		List<Coordinate> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			points.add(new Coordinate(rng.nextDouble() * size * 1.2 - size * 0.1,
+					rng.nextDouble() * size * 1.2 - size * 0.1));
+		}
+		return points;
+	}
+
+	private static double getNearestDistance(Coordinate point) {
+		double nearest = Double.POSITIVE_INFINITY;
+		for (Coordinate site : TestMaps.getMap().getSites()) {
+			nearest = Math.min(nearest, site.distance(point));
+		}
+		return nearest;
+	}
+
+	@Test
+	public void findsSiteOfRegionContainingPoint() {
+		IslandMap map = TestMaps.getMap();
+		GeometryFactory geomFact = new GeometryFactory();
+		int inside = 0;
+		for (Coordinate point : getPoints(2000, 31)) {
+			Coordinate site = map.getSiteAt(point);
+			Point geometry = geomFact.createPoint(point);
+			if (!map.getBoundary().covers(geometry)) {
+				assertNull(site);
+				assertNull(map.getRegionAt(point));
+				continue;
+			}
+			inside++;
+			// regions are Voronoi cells, so the site is a nearest one
+			assertEquals(getNearestDistance(point), site.distance(point), 0.0);
+			assertTrue(map.getRegionAt(point).buffer(1e-9).covers(geometry));
+		}
+		assertTrue(inside > 0);
+	}
+
+	@Test
+	public void batchAgreesWithSingleQueries() {
+		IslandMap map = TestMaps.getMap();
+		List<Coordinate> points = getPoints(2000, 32);
+		List<Coordinate> sites = map.getSitesAt(points);
+		assertEquals(points.size(), sites.size());
+		for (int i = 0; i < points.size(); i++) {
+			assertEquals(map.getSiteAt(points.get(i)), sites.get(i));
+		}
+	}
+
+	@Test
+	public void findsEverySiteAtItself() {
+		IslandMap map = TestMaps.getMap();
+		for (Coordinate site : map.getSites()) {
+			assertEquals(site, map.getSiteAt(site));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package jape.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.TestMaps;
+
+public class SiteIndexTest {
+
+	private static List<Coordinate> getPoints(int count, long seed) {
+		// reach a little outside the map too
+		double size = TestMaps.getMap().getBoundary().getEnvelopeInternal().getWidth();
+		Random rng = new Random(seed);
+		List<Coordinate> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			points.add(new Coordinate(rng.nextDouble() * size * 1.2 - size * 0.1,
+					rng.nextDouble() * size * 1.2 - size * 0.1));
+		}
+		return points;
+	}
+
+	/**
+	 * @return the distances to every site, nearest first
+	 */
+	private static List<Double> getDistances(Coordinate point, boolean landOnly) {
+		IslandMap map = TestMaps.getMap();
+		List<Double> distances = new ArrayList<>();
+		for (Coordinate site : map.getSites()) {
+			if (!landOnly || !map.getIsSiteUnderwater(site)) {
+				distances.add(site.distance(point));
+			}
+		}
+		Collections.sort(distances);
+		return distances;
+	}
+
+	@Test
+	public void findsNearestSite() {
+		IslandMap map = TestMaps.getMap();
+		SiteIndex index = map.getSiteIndex();
+		assertEquals(map.getSites().size(), index.size());
+		for (Coordinate point : getPoints(500, 21)) {
+			assertEquals(getDistances(point, false).get(0), index.getNearest(point).distance(point), 0.0);
+			Coordinate land = index.getNearest(point, true);
+			assertFalse(map.getIsSiteUnderwater(land));
+			assertEquals(getDistances(point, true).get(0), land.distance(point), 0.0);
+		}
+	}
+
+	@Test
+	public void findsKNearestSitesInOrder() {
+		SiteIndex index = TestMaps.getMap().getSiteIndex();
+		for (Coordinate point : getPoints(200, 22)) {
+			List<Double> expected = getDistances(point, true);
+			List<Coordinate> nearest = index.getNearest(point, 7, true);
+			assertEquals(7, nearest.size());
+			for (int i = 0; i < nearest.size(); i++) {
+				assertEquals(expected.get(i), nearest.get(i).distance(point), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void findsSitesWithinRadius() {
+		IslandMap map = TestMaps.getMap();
+		SiteIndex index = map.getSiteIndex();
+		double radius = 90.0;
+		for (Coordinate point : getPoints(200, 23)) {
+			Set<Coordinate> expected = new HashSet<>();
+			for (Coordinate site : map.getSites()) {
+				if (site.distance(point) <= radius) {
+					expected.add(site);
+				}
+			}
+			List<Coordinate> within = index.getWithin(point, radius, false);
+			assertEquals(expected.size(), within.size());
+			assertEquals(expected, new HashSet<>(within));
+		}
+	}
+
+	@Test
+	public void handlesEmptyAndSmallIndexes() {
+		SiteIndex empty = new SiteIndex(Collections.<Coordinate> emptyList(), null);
+		assertNull(empty.getNearest(new Coordinate(1.0, 1.0)));
+		assertTrue(empty.getWithin(new Coordinate(1.0, 1.0), 10.0, false).isEmpty());
+
+		Coordinate only = new Coordinate(5.0, 5.0);
+		SiteIndex single = new SiteIndex(Collections.singletonList(only), null);
+		assertEquals(only, single.getNearest(new Coordinate(-100.0, 300.0)));
+		assertEquals(1, single.getNearest(new Coordinate(0.0, 0.0), 3, false).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMismatchedLandMask() {
+		new SiteIndex(Collections.singletonList(new Coordinate(0.0, 0.0)), new boolean[2]);
+	}
+}
@@ -0,0 +1,104 @@
+package jape.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	@Test
+	public void bucketsHoldTheirValues() {
+		List<Long> values = new ArrayList<>();
+		for (long value = 0; value < 100; value++) {
+			values.add(value);
+		}
+		for (int exponent = 3; exponent < 63; exponent++) {
+			values.add((1L << exponent) - 1);
+			values.add(1L << exponent);
+			values.add((1L << exponent) + 1);
+		}
+		values.add(Long.MAX_VALUE - 1);
+		values.add(Long.MAX_VALUE);
+		Random rng = new Random(19);
+		for (int i = 0; i < 1000; i++) {
+			values.add(rng.nextLong() >>> (1 + rng.nextInt(63)));
+		}
+
+		for (long value : values) {
+			int bucket = LogHistogram.getBucket(value);
+			long upper = LogHistogram.getBucketUpperBound(bucket);
+			assertTrue(value + " above bucket " + bucket, value <= upper);
+			if (bucket > 0) {
+				assertTrue(value + " below bucket " + bucket, value > LogHistogram.getBucketUpperBound(bucket - 1));
+			}
+			// within the advertised resolution of an eighth
+			assertTrue(value + " in too wide a bucket", upper - value <= value / 8);
+		}
+	}
+
+	@Test
+	public void boundariesFallInTheRightBuckets() {
+		assertEquals(0, LogHistogram.getBucket(0));
+		assertEquals(0, LogHistogram.getBucketUpperBound(0));
+		assertEquals(7, LogHistogram.getBucket(7));
+		assertEquals(8, LogHistogram.getBucket(8));
+		assertEquals(8, LogHistogram.getBucketUpperBound(8));
+		// from 16 each bucket holds two values
+		assertEquals(LogHistogram.getBucket(16), LogHistogram.getBucket(17));
+		assertEquals(17, LogHistogram.getBucketUpperBound(LogHistogram.getBucket(16)));
+		assertEquals(Long.MAX_VALUE, LogHistogram.getBucketUpperBound(LogHistogram.getBucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void bucketsAreInValueOrder() {
+		long last = -1;
+		for (int bucket = 0; bucket <= LogHistogram.getBucket(Long.MAX_VALUE); bucket++) {
+			long upper = LogHistogram.getBucketUpperBound(bucket);
+			assertTrue(upper > last);
+			assertEquals(bucket, LogHistogram.getBucket(upper));
+			last = upper;
+		}
+	}
+
+	@Test
+	public void reportsPercentiles() {
+		LogHistogram histogram = new LogHistogram();
+		assertEquals(0, histogram.getPercentile(50.0));
+		assertEquals(0, histogram.getMax());
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMean(), 1e-9);
+		assertEquals(1, histogram.getPercentile(0.0));
+		assertWithinBucket(500, histogram.getPercentile(50.0));
+		assertWithinBucket(990, histogram.getPercentile(99.0));
+		assertWithinBucket(1000, histogram.getPercentile(100.0));
+		assertEquals(histogram.getPercentile(100.0), histogram.getMax());
+
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getMax());
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(50.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeValues() {
+		new LogHistogram().record(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsPercentileAboveHundred() {
+		new LogHistogram().getPercentile(100.5);
+	}
+
+	private static void assertWithinBucket(long expected, long actual) {
+		assertEquals(LogHistogram.getBucketUpperBound(LogHistogram.getBucket(expected)), actual);
+	}
+}
@@ -0,0 +1,199 @@
+package jape.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import jape.AStarBuilder;
+import jape.GraphNeighbourSource;
+import jape.Heuristic;
+import jape.NeighbourSource;
+import jape.PathQuery;
+import jape.PathResult;
+import jape.SearchListener;
+import jape.SearchStatistics;
+import jape.SearchStatus;
+import jape.SuccessorIterator;
+import jape.TestMaps;
+
+public class SearchMetricsTest {
+
+	@Test
+	public void listenerCountsMatchTheSearch() {
+		checkCounts(TestMaps.EUCLIDEAN, 20);
+	}
+
+	@Test
+	public void listenerCountsReopenedVertices() {
+		// an inconsistent heuristic, so that closed vertices are reopened
+		Random rng = new Random(21);
+		int reopened = checkCounts((a, b) -> TestMaps.EUCLIDEAN.getCostEstimate(a, b) * rng.nextDouble() * 2.0, 22);
+		assertTrue(reopened > 0);
+	}
+
+	@Test
+	public void aggregatesSearches() {
+		AStarBuilder<Coordinate, DefaultWeightedEdge> aStarBuilder = new AStarBuilder<>(TestMaps.getGraph(),
+				TestMaps.EUCLIDEAN);
+		SearchMetrics metrics = new SearchMetrics();
+		aStarBuilder.setSearchListener(metrics);
+		int found = 0;
+		long expanded = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, 23)) {
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal());
+			found += result.isFound() ? 1 : 0;
+			expanded += result.getExpanded();
+		}
+		assertEquals(50, metrics.getQueryCount());
+		assertEquals(found, metrics.getFoundCount());
+		assertEquals(0, metrics.getStoppedCount());
+		assertEquals(expanded / 50.0, metrics.getExpandedMean(), 1e-9);
+		assertTrue(metrics.getExpandedP50() <= metrics.getExpandedMax());
+		metrics.reset();
+		assertEquals(0, metrics.getQueryCount());
+	}
+
+	@Test
+	public void registersAndUnregistersMBean() throws Exception {
+		SearchMetrics metrics = new SearchMetrics();
+		metrics.searchFinished("a", "b", new SearchStatistics(SearchStatus.COMPLETED, true, 3, 0, 2, 5, 6, 100));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("jape:type=SearchMetrics,name=" + ObjectName.quote("test"));
+
+		metrics.register("test");
+		try {
+			assertTrue(server.isRegistered(name));
+			assertEquals(1L, server.getAttribute(name, "QueryCount"));
+			assertEquals(5L, server.getAttribute(name, "EdgesRelaxedTotal"));
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+		// a second unregister does nothing, and the name can be used again
+		metrics.unregister();
+		metrics.register("test");
+		metrics.unregister();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsRegisteringTwice() {
+		SearchMetrics metrics = new SearchMetrics();
+		metrics.register("twice");
+		try {
+			metrics.register("twice");
+		} finally {
+			metrics.unregister();
+		}
+	}
+
+	/**
+	 * Runs queries through counting wrappers and checks the statistics the
+	 * listener gets against what the search did.
+	 *
+	 * @return total vertices reopened
+	 */
+	private static int checkCounts(Heuristic<Coordinate> heuristic, long seed) {
+		CountingSource source = new CountingSource(new GraphNeighbourSource<>(TestMaps.getGraph()));
+		int[] heuristicCalls = new int[1];
+		AStarBuilder<Coordinate, Object> aStarBuilder = new AStarBuilder<>(source, (a, b) -> {
+			heuristicCalls[0]++;
+			return heuristic.getCostEstimate(a, b);
+		});
+		List<SearchStatistics> reported = new ArrayList<>();
+		aStarBuilder.setSearchListener((SearchListener<Object>) (start, goal, statistics) -> reported.add(statistics));
+
+		int reopened = 0;
+		for (PathQuery<Coordinate> query : TestMaps.getQueries(50, seed)) {
+			source.reset();
+			heuristicCalls[0] = 0;
+			reported.clear();
+			PathResult<Coordinate> result = aStarBuilder.search(query.getStart(), query.getGoal());
+
+			assertEquals(1, reported.size());
+			SearchStatistics statistics = reported.get(0);
+			assertEquals(result.isFound(), statistics.isFound());
+			assertEquals(result.getStatus(), statistics.getStatus());
+			assertEquals(result.getExpanded(), statistics.getExpanded());
+			assertEquals(source.expansions, statistics.getExpanded());
+			assertEquals(source.edges, statistics.getEdgesRelaxed());
+			assertEquals(heuristicCalls[0], statistics.getHeuristicCalls());
+			assertEquals(result.getElapsedNanos(), statistics.getElapsedNanos());
+			// each vertex expanded again must have been reopened first
+			assertTrue(statistics.getReopened() >= source.expansions - source.expandedVertices.size());
+			assertTrue(statistics.getReopened() <= statistics.getEdgesRelaxed());
+			if (heuristic == TestMaps.EUCLIDEAN) {
+				assertEquals(0, statistics.getReopened());
+			}
+			reopened += statistics.getReopened();
+		}
+		return reopened;
+	}
+
+	/**
+	 * Counts the vertices expanded and edges visited through it.
+	 */
+	private static class CountingSource implements NeighbourSource<Coordinate> {
+
+		private final NeighbourSource<Coordinate> source;
+		int expansions;
+		int edges;
+		final Set<Coordinate> expandedVertices = new HashSet<>();
+
+		CountingSource(NeighbourSource<Coordinate> source) {
+			this.source = source;
+		}
+
+		void reset() {
+			expansions = 0;
+			edges = 0;
+			expandedVertices.clear();
+		}
+
+		@Override
+		public SuccessorIterator<Coordinate> newSuccessorIterator() {
+			SuccessorIterator<Coordinate> successors = source.newSuccessorIterator();
+			return new SuccessorIterator<Coordinate>() {
+				@Override
+				public void start(Coordinate vertex) {
+					expansions++;
+					expandedVertices.add(vertex);
+					successors.start(vertex);
+				}
+
+				@Override
+				public boolean next() {
+					boolean hasNext = successors.next();
+					if (hasNext) {
+						edges++;
+					}
+					return hasNext;
+				}
+
+				@Override
+				public Coordinate getSuccessor() {
+					return successors.getSuccessor();
+				}
+
+				@Override
+				public double getWeight() {
+					return successors.getWeight();
+				}
+			};
+		}
+	}
+}